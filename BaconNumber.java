@@ -1,16 +1,23 @@
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Scanner;
 
+import javax.management.JMException;
+
 /**
  * Reads in a database, then allows the user to find data pertaining to the Bacon Number of that database.
  * Allows the user to find the Bacon Number and path from the current center to a destination actor.
+ * Allows the user to find the Bacon Number and path between any two actors, without recentering.
+ * Allows the user to bound the separation of any two actors instantly, then find it with a landmark guided search.
+ * Allows the user to build an exact distance index in the background, for instant Bacon Numbers between any two actors.
  * Allows the user to recenter the current graph to a new actor.
  * Allows the user to find the average bacon number from the current center to all other actors.
- * Allows the user to find the centers with the lowest average bacon numbers in the graph.
+ * Allows the user to find the centers with the lowest average bacon numbers in the graph, exactly or from a sample.
  * Allows the user to create a table of the counts of bacon numbers for the given center from 0 up to the longest.
  * Allows the user to find all movies an actor was in.
  * Allows the user to find one of the longest paths in the database from the center.
+ * Allows the user to find the diameter of the database: one of the longest paths between any two actors.
+ * Allows the user to count the connected components of the database, and the actors the center cannot reach.
+ * Allows the user to build an actor-only co-star graph that speeds up searches from actors.
+ * Allows the user to see how much work the searches have done, and how long each command takes.
  * @author Emily Rizzo
  *
  */
@@ -23,28 +30,17 @@ public class BaconNumber {
     public static void main(String[] args) {
 	MyGraph graph = new MyGraph();
 	String source = args[0];
-	
-	int lines = 0;
-	if (source.contains("small")){
-		lines = 1817;
-	} else if (source.contains("top250")){
-		lines=14339;
-	} else if (source.contains("pre1950")){
-		lines=1014465;
-	} else if (source.contains("post1950")){
-		lines=8159857;
-	} else if (source.contains("only-tv-v")){
-		lines = 2302907;
-	} else if (source.contains("no-tv-v")){
-		lines = 6871415;
-	} else if (source.contains("full")){
-		lines = 9174322;
+	try {
+	    graph.stats().register();		//lets jconsole watch the counters while the program runs
+	} catch (JMException e) {
+	    System.out.println("Stats could not be registered with JMX: " + e.getMessage());
 	}
+	
 	String center = "Kevin Bacon (I)";
 	if (args.length > 1){
 	    center = args[1];
 	}
-	graph.readIn(source, lines);
+	graph.readIn(source);
 	System.out.println();
 	System.out.println("Creating Hash Map using Dijkstra's Algorithm...");
 	//System.out.println(graph);
@@ -52,12 +48,11 @@ public class BaconNumber {
 	MyGraph.Vertex c = graph.getVertex(center);
 	while (c == null) {
 	    System.out.println("Vertex \"" + center + "\" is not in the graph. Please enter a name from the following: ");
-	    Iterator itr = graph.actors.iterator();
 	    int max = 0;
-	    while (itr.hasNext() && max < 20) {
-	    	MyGraph.Vertex check = graph.getVertex((String) itr.next());
-	    	if (check.getEdges().size() > 10){
-	    		System.out.println(check + " || " + check.getEdges().size());
+	    for (int id = graph.nextActor(0); id >= 0 && max < 20; id = graph.nextActor(id + 1)) {
+	    	MyGraph.Vertex check = graph.vertex(id);
+	    	if (graph.degree(check) > 10){
+	    		System.out.println(check + " || " + graph.degree(check));
 	    		max++;
 	    	}
 	    }
@@ -68,13 +63,12 @@ public class BaconNumber {
 	    }
 
 	}
-	System.out.println (c + ", " + c.getEdges().size());
+	System.out.println (c + ", " + graph.degree(c));
 
-	HashMap<MyGraph.Vertex, MyGraph.Path> hm = graph.dijkstra(c);
+	ShortestPathTree tree = graph.dijkstra(c);
 
 	String line;
 	Scanner scan;
-//	System.out.println("HashMap: " + hm.toString());
 
 	System.out.println(); System.out.println();
 	System.out.println("Welcome to Kevin Bacon! Kevin Bacon welcomes you.");
@@ -87,6 +81,8 @@ public class BaconNumber {
 	    scan = new Scanner(line);
 	    String command = scan.next();
 	    command = command.toLowerCase();
+	    long began = System.nanoTime();
+	    boolean timed = true;
 
 	    if(command.equals("exit")){
 		System.exit(0);
@@ -98,7 +94,77 @@ public class BaconNumber {
 			name = name + scan.next() + " ";
 		    }
 		    name = name.substring(0, name.length()-1);
-		    System.out.println(graph.find(hm, name));
+		    System.out.println(graph.find(tree, name));
+		    System.out.println();
+		} else
+
+		if (command.equals("between")){			//find the path between any two names, without recentering
+		    String names = "";
+		    while (scan.hasNext()){
+			names = names + scan.next() + " ";
+		    }
+		    String[] pair = names.split("\\|");
+		    if (pair.length == 2) {
+			System.out.println(graph.findBetween(pair[0].trim(), pair[1].trim()));
+		    } else {
+			System.out.println("Usage: between <name> | <name>");
+		    }
+		    System.out.println();
+		} else
+
+		if (command.equals("separation")){		//bound, then find, the separation of any two names from the landmarks
+		    String names = "";
+		    while (scan.hasNext()){
+			names = names + scan.next() + " ";
+		    }
+		    String[] pair = names.split("\\|");
+		    if (pair.length == 2) {
+			try {
+			    if (graph.landmarks == null) {
+				System.out.println("Building landmark index...");
+			    }
+			    int[] bounds = graph.separationBounds(pair[0].trim(), pair[1].trim());
+			    if (bounds != null && bounds[0] == CSRGraph.UNREACHED) {
+				System.out.println("Landmarks show no path exists.");
+			    } else if (bounds != null) {
+				System.out.println("Landmark bounds: at least " + bounds[0] + ", at most "
+					+ (bounds[1] == CSRGraph.UNREACHED ? "unknown" : bounds[1]));
+			    }
+			    System.out.println(graph.separation(pair[0].trim(), pair[1].trim()));
+			} catch (IllegalStateException e) {
+			    System.out.println("Landmark index was not built: " + e.getMessage());
+			}
+		    } else {
+			System.out.println("Usage: separation <name> | <name>");
+		    }
+		    System.out.println();
+		} else
+
+		if (command.equals("distance")){		//bacon number between any two names, from the labels once they are built
+		    String names = "";
+		    while (scan.hasNext()){
+			names = names + scan.next() + " ";
+		    }
+		    String[] pair = names.split("\\|");
+		    if (pair.length == 2) {
+			int d = graph.baconNumber(pair[0].trim(), pair[1].trim());
+			if (d == CSRGraph.UNREACHED) {
+			    System.out.println(pair[0].trim() + " is unreachable");
+			} else {
+			    System.out.println(pair[0].trim() + " (" + d + ")");
+			}
+		    } else {
+			System.out.println("Usage: distance <name> | <name>");
+		    }
+		    System.out.println();
+		} else
+
+		if (command.equals("labels")){
+		    if (graph.buildLabels(true) == null) {
+			System.out.println("Labels are ready: " + graph.labels.entries() + " entries.");
+		    } else {
+			System.out.println("Building labels in the background; distance searches until they are ready.");
+		    }
 		    System.out.println();
 		} else
 
@@ -112,26 +178,64 @@ public class BaconNumber {
 			if (c != null) {
 			    System.out.println("Recentering to \"" + name + "\" ...");
 			    center = name;
-			    hm = graph.dijkstra(c);
+			    tree = graph.dijkstra(c);
 			} else {
 			    System.out.println("Vertex \"" + name + "\" does not exist in the graph.");
 			} 
 			System.out.println();
 		} else if (command.equals("avgdist")) {
-			graph.loadConnected(hm);
-			float avg = graph.avgDist(hm);
+			graph.loadConnected(tree);
+			float avg = graph.avgDist(tree);
 			System.out.println(avg + "\t" + center + "\t( " + graph.reachable() + ", " + graph.unreachable + " )");
 			System.out.println();
 		} else if (command.equals("topcenter")) {
-			graph.loadConnected(hm);
+			graph.loadConnected(tree);
 			int n = 5;
-			if (scan.hasNext()) {
-			    n = Integer.parseInt(scan.next());
+			boolean usage = scan.hasNext() && !scan.hasNextInt();
+			if (scan.hasNextInt()) {
+			    n = scan.nextInt();
+			    usage = n <= 0;
+			}
+			String mode = scan.hasNext() ? scan.next().toLowerCase() : "";
+			if (usage) {
+			    System.out.println("Usage: topcenter <n> [threads | sample <k> | budget <seconds>]");
+			} else if (mode.equals("sample") && scan.hasNextInt()) {		//estimate from k pivots, then refine
+			    graph.topcenter(n, tree, scan.nextInt(), 0);
+			} else if (mode.equals("budget") && scan.hasNextDouble()) {		//estimate from as many pivots as fit in s seconds
+			    graph.topcenter(n, tree, 0, (long) (1000 * scan.nextDouble()));
+			} else if (mode.length() > 0 && !mode.equals("sample") && !mode.equals("budget")) {		//number of worker threads
+			    int threads = 0;
+			    try {
+				threads = Integer.parseInt(mode);
+			    } catch (NumberFormatException e) {
+				threads = 0;
+			    }
+			    if (threads > 0) {		//for this run only; other commands keep the default
+				graph.topcenter(n, tree, threads);
+			    } else {
+				System.out.println("Usage: topcenter <n> [threads | sample <k> | budget <seconds>]");
+			    }
+			} else if (mode.length() > 0) {
+			    System.out.println("Usage: topcenter <n> [threads | sample <k> | budget <seconds>]");
+			} else {
+			    graph.topcenter(n, tree);
+			}
+			System.out.println();
+		} else if (command.equals("project")) {
+			System.out.println("Building co-star graph...");
+			try {
+			    if (graph.project()) {
+				System.out.println("Actor searches now use a co-star graph of " + graph.costars.edges() + " edges.");
+			    } else {
+				System.out.println("This graph has edges that are not credits, so it cannot be projected.");
+			    }
+			} catch (IllegalStateException e) {
+			    System.out.println("Co-star graph was not built: " + e.getMessage());
 			}
-			graph.topcenter(n, hm);
 			System.out.println();
 		} else if (command.equals("table")) {
-			Integer[] counts = graph.table(hm);
+			System.out.println("Table for: " + graph.vertex(tree.source()));
+			Integer[] counts = graph.table(tree);
 			graph.printTable(counts);
 			System.out.println();
 		    } else if (command.equals("movies")){
@@ -144,13 +248,56 @@ public class BaconNumber {
 			System.out.println(graph.movies(name));
 			
 		} else if(command.equals("longest")){
-			Integer[] counts = graph.table(hm);
-			System.out.println(graph.longest(counts, hm));
+			System.out.println("Table for: " + graph.vertex(tree.source()));
+			Integer[] counts = graph.table(tree);
+			System.out.println(graph.longest(counts, tree));
+		} else if (command.equals("diameter")) {
+			Diameter d = graph.diameter();
+			if (d == null) {
+			    System.out.println("The graph is empty.");
+			} else {
+			    System.out.println("Largest component: " + d.size() + " actors. Diameter " + d.length()
+				    + ", found with " + d.searches() + " searches.");
+			    System.out.println(graph.longest(d));
+			}
+			System.out.println();
+		} else if (command.equals("components")) {
+			Components parts = graph.components();
+			int largest = parts.largest();
+			if (largest < 0) {
+			    System.out.println("The graph is empty.");
+			} else {
+			    System.out.println(parts.count() + " components. The largest has " + parts.actors(largest) + " actors and "
+				    + parts.size(largest) + " vertices.");
+			    int reached = graph.reachable(c);
+			    if (reached >= 0) {
+				System.out.println(c + " reaches " + reached + " actors; " + (graph.actors() - reached)
+					+ " cannot be reached.");
+			    }
+			}
+			System.out.println();
+		} else if (command.equals("stats")) {
+			timed = false;
+			System.out.print(graph.stats().report());
+			System.out.println();
 		}else if(command.equals("help")) {
+			timed = false;
 			System.out.printf("%-15s : %s", "(Command)", " (Function)");
 			System.out.println();
 			System.out.printf("%-15s : %s", "find <name>", " finds the shortest path from center to name.");
 			System.out.println();
+			System.out.printf("%-15s : %s", "between <a>|<b>", " finds the shortest path from b to a."); System.out.println();
+			System.out.printf("%18s %s", "", "(does not change the center)");
+			System.out.println();
+			System.out.printf("%-15s : %s", "separation <a>|<b>", "bounds the bacon number from b to a at once,"); System.out.println();
+			System.out.printf("%18s %s", "", "then finds the path with a landmark guided search.");
+			System.out.println();
+			System.out.printf("%-15s : %s", "distance <a>|<b>", "finds the bacon number from b to a."); System.out.println();
+			System.out.printf("%18s %s", "", "(instant once labels are built)");
+			System.out.println();
+			System.out.printf("%-15s : %s", "labels", " builds an exact distance index in the background,"); System.out.println();
+			System.out.printf("%18s %s", "", "saved next to the database.");
+			System.out.println();
 			System.out.printf("%-15s : %s", "recenter <name>", " recenters to the given name.");
 			System.out.println();
 			System.out.printf("%-15s : %s", "avgdist", " finds the average bacon number w/respect to the center.");
@@ -158,6 +305,15 @@ public class BaconNumber {
 			System.out.printf("%-15s : %s", "topcenter <n>", " finds the top n centers for the graph,"); System.out.println();
 			System.out.printf("%18s %s", "", "i.e. the n actors with the shortest average bacon number.");
 			System.out.println();
+			System.out.printf("%18s %s", "", "an optional second number sets the worker threads to use.");
+			System.out.println();
+			System.out.printf("%18s %s", "", "\"sample <k>\" or \"budget <seconds>\" estimates from k pivots,");
+			System.out.println();
+			System.out.printf("%18s %s", "", "or as many as fit in the time, then refines the best exactly.");
+			System.out.println();
+			System.out.printf("%-15s : %s", "project", " builds an actor-only co-star graph to speed up"); System.out.println();
+			System.out.printf("%18s %s", "", "recenter and find (uses more memory).");
+			System.out.println();
 			System.out.printf("%-15s : %s", "table", " prints a table of the counts of bacon numbers"); System.out.println();
 			System.out.printf("%18s %s", "", "for the given center from 0 up to the longest.");
 			System.out.println();
@@ -165,10 +321,23 @@ public class BaconNumber {
 			System.out.println();
 			System.out.printf("%-15s : %s", "longest", " prints one path of longest possible length in the graph");
 			System.out.println();
+			System.out.printf("%-15s : %s", "diameter", " prints one of the longest paths between any two actors"); System.out.println();
+			System.out.printf("%18s %s", "", "of the largest component, whatever the center.");
+			System.out.println();
+			System.out.printf("%-15s : %s", "components", " counts the connected components, and the actors the"); System.out.println();
+			System.out.printf("%18s %s", "", "center cannot reach, without a search.");
+			System.out.println();
+			System.out.printf("%-15s : %s", "stats", " prints the work done by searches so far, and how long"); System.out.println();
+			System.out.printf("%18s %s", "", "each command has taken.");
+			System.out.println();
 			System.out.println();
 		    } else {
+			timed = false;
 			System.out.println("Not a valid command. Enter \"help\" for a list of valid commands.");
 		    }
+	    if (timed) {
+		graph.stats().time(command, System.nanoTime() - began);
+	    }
 
 	    System.out.println("Enter \"help\" for a list of commands or \"exit\" to exit the system.");
 	    System.out.print("Please enter command: ");
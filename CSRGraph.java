@@ -0,0 +1,574 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A frozen, int-indexed copy of the edges of a MyGraph, stored in compressed sparse row (CSR) form.
+ * Every vertex is identified by its id. The outbound edges of vertex u are stored in
+ * targets[offsets[u]] ... targets[offsets[u+1] - 1], with the matching costs at the same positions in costs.
+ * Ids that no longer hold a vertex simply have an empty row.
+ *
+ * A CSRGraph is never changed once it is built, so searches only need the arrays they are handed, and any number of
+ * them can run at once. Searches that keep nothing once they finish borrow their scratch arrays from a pool of
+ * SearchContexts, so they neither allocate nor clear anything the size of the graph.
+ * When every edge costs 0 or 1 (as in every graph built by MyGraph.readIn) shortestPaths uses a 0-1 BFS
+ * instead of Dijkstra's algorithm.
+ *
+ * The inbound edges are kept the same way in inOffsets, inSources and inCosts, built the first time they are
+ * needed, so a search can also walk the graph backwards from a destination.
+ */
+public class CSRGraph {
+	/** distance of a vertex that has not been reached by a search */
+	public static final int UNREACHED = Integer.MAX_VALUE;
+
+	final int size;
+	final int[] offsets;
+	final int[] targets;
+	final int[] costs;
+	final boolean negative;
+	final boolean zeroOne;
+	int[] inOffsets;
+	int[] inSources;
+	int[] inCosts;
+	GraphStats stats;		//null unless the owning graph is counting its searches
+	final ConcurrentLinkedQueue<SearchContext> contexts = new ConcurrentLinkedQueue<SearchContext>();
+
+	/**
+	 * creates a CSR graph from already packed arrays.
+	 * @param offsets - size+1 row offsets into targets and costs
+	 * @param targets - destination id of every edge, grouped by origin
+	 * @param costs - cost of every edge, parallel to targets
+	 */
+	public CSRGraph(int[] offsets, int[] targets, int[] costs) {
+		this.size = offsets.length - 1;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.costs = costs;
+		boolean neg = false;
+		boolean zo = true;
+		for (int i = 0; i < offsets[size]; i++) {
+			if (costs[i] < 0) {
+				neg = true;
+			}
+			if (costs[i] != 0 && costs[i] != 1) {
+				zo = false;
+			}
+		}
+		this.negative = neg;
+		this.zeroOne = zo;
+	}
+
+	/**
+	 * Packs a list of edges into a CSRGraph, the same way MyGraph.insertEdge would have added them one by one:
+	 * each row keeps its edges in the order they first appear, and if an edge appears more than once only the
+	 * first copy is kept, with the cost of the last copy.
+	 * @param size - number of ids
+	 * @param from - origin id of every edge
+	 * @param to - destination id of every edge
+	 * @param cost - cost of every edge
+	 * @param m - number of edges in the lists
+	 * @return - the packed graph
+	 */
+	public static CSRGraph fromEdges(int size, int[] from, int[] to, int[] cost, int m) {
+		int[] offsets = new int[size + 1];
+		for (int i = 0; i < m; i++) {
+			offsets[from[i] + 1]++;
+		}
+		for (int u = 0; u < size; u++) {
+			offsets[u + 1] += offsets[u];
+		}
+		int[] next = Arrays.copyOf(offsets, size);
+		int[] targets = new int[m];
+		int[] costs = new int[m];
+		for (int i = 0; i < m; i++) {
+			int j = next[from[i]]++;
+			targets[j] = to[i];
+			costs[j] = cost[i];
+		}
+		int[] mark = new int[size];		//row+1 of the last row that had an edge to each id
+		int[] pos = new int[size];		//where that edge was kept
+		int kept = 0;
+		int start = 0;
+		for (int u = 0; u < size; u++) {
+			int end = offsets[u + 1];
+			offsets[u] = kept;
+			for (int i = start; i < end; i++) {
+				int v = targets[i];
+				if (mark[v] == u + 1) {
+					costs[pos[v]] = costs[i];
+				} else {
+					mark[v] = u + 1;
+					pos[v] = kept;
+					targets[kept] = v;
+					costs[kept] = costs[i];
+					kept++;
+				}
+			}
+			start = end;
+		}
+		offsets[size] = kept;
+		if (kept < m) {
+			targets = Arrays.copyOf(targets, kept);
+			costs = Arrays.copyOf(costs, kept);
+		}
+		return new CSRGraph(offsets, targets, costs);
+	}
+
+	/**
+	 * @return - number of ids (rows) in the graph
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return - number of edges in the graph
+	 */
+	public int edges() {
+		return this.offsets[size];
+	}
+
+	/**
+	 * @param u - id of a vertex
+	 * @return - number of outbound edges of u
+	 */
+	public int degree(int u) {
+		return this.offsets[u + 1] - this.offsets[u];
+	}
+
+	/**
+	 * Returns the cost of the cheapest edge from u to v.
+	 * @param u - id of the origin
+	 * @param v - id of the destination
+	 * @return - cost of the edge from u to v, or UNREACHED if there is no such edge
+	 */
+	public int cost(int u, int v) {
+		int c = UNREACHED;
+		for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+			if (targets[i] == v && costs[i] < c) {
+				c = costs[i];
+			}
+		}
+		return c;
+	}
+
+	/**
+	 * Builds the inbound edge arrays, if they have not been built yet. The inbound edges of vertex v are
+	 * inSources[inOffsets[v]] ... inSources[inOffsets[v+1] - 1], with their costs at the same positions in inCosts.
+	 */
+	public synchronized void reverse() {
+		if (inOffsets == null) {
+			int m = edges();
+			int[] inOff = new int[size + 1];
+			for (int i = 0; i < m; i++) {
+				inOff[targets[i] + 1]++;
+			}
+			for (int v = 0; v < size; v++) {
+				inOff[v + 1] += inOff[v];
+			}
+			int[] next = Arrays.copyOf(inOff, size);
+			int[] src = new int[m];
+			int[] cst = new int[m];
+			for (int u = 0; u < size; u++) {
+				for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+					int j = next[targets[i]]++;
+					src[j] = u;
+					cst[j] = costs[i];
+				}
+			}
+			this.inSources = src;
+			this.inCosts = cst;
+			this.inOffsets = inOff;
+		}
+	}
+
+	/**
+	 * Borrows a SearchContext for one search over this graph, ready to use. It belongs to the calling thread until it
+	 * is given back with release.
+	 * @return - an idle context from the pool, or a new one if every context is in use
+	 */
+	SearchContext context() {
+		SearchContext c = this.contexts.poll();
+		if (c == null) {
+			c = new SearchContext(this.size);
+		}
+		c.begin();
+		return c;
+	}
+
+	/**
+	 * Gives back a context borrowed with context. Only about one context per core is kept; the rest are left to the
+	 * garbage collector, so a burst of searches does not hold on to their memory.
+	 * @param c - context that is no longer used
+	 */
+	void release(SearchContext c) {
+		if (this.contexts.size() < Runtime.getRuntime().availableProcessors()) {
+			this.contexts.offer(c);
+		}
+	}
+
+	/**
+	 * @return - true if every edge in the graph costs 0 or 1
+	 */
+	public boolean isZeroOne() {
+		return this.zeroOne;
+	}
+
+	/**
+	 * Finds the shortest paths from the vertex with id source, using zeroOneBFS if every edge costs 0 or 1
+	 * and dijkstra otherwise. Both fill dist and parent the same way.
+	 * @param source - id of the central vertex
+	 * @param dist - array of at least size() entries to be filled with distances
+	 * @param parent - array of at least size() entries to be filled with predecessors
+	 * @return - number of vertices reached, including the source
+	 */
+	public int shortestPaths(int source, int[] dist, int[] parent) {
+		if (zeroOne) {
+			return zeroOneBFS(source, dist, parent);
+		}
+		return dijkstra(source, dist, parent);
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm from the vertex with id source.
+	 * Fills dist with the cost of the shortest path to every id (UNREACHED if there is none),
+	 * and parent with the id before it on that path (-1 for the source and unreached ids).
+	 * @param source - id of the central vertex
+	 * @param dist - array of at least size() entries to be filled with distances
+	 * @param parent - array of at least size() entries to be filled with predecessors
+	 * @return - number of vertices reached, including the source
+	 */
+	public int dijkstra(int source, int[] dist, int[] parent) {
+		if (negative) {
+			throw new IndexOutOfBoundsException("Negative edges are not approved");
+		}
+		for (int i = 0; i < size; i++) {
+			dist[i] = UNREACHED;
+			parent[i] = -1;
+		}
+		SearchContext c = context();
+		LongHeap queue = c.heap;
+		dist[source] = 0;
+		queue.add(0, source);
+		int count = 0;
+		long relaxed = 0;
+		long pushes = 1;
+		long stale = 0;
+		while (!queue.isEmpty()) {
+			long top = queue.poll();
+			int u = (int) top;
+			if ((int) (top >>> 32) > dist[u]) {		//queued again since at a shorter distance, so already settled
+				stale++;
+				continue;
+			}
+			count++;
+			int du = dist[u];
+			relaxed += offsets[u + 1] - offsets[u];
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				int v = targets[i];
+				int d = du + costs[i];
+				if (d < dist[v]) {
+					dist[v] = d;
+					parent[v] = u;
+					queue.add(d, v);
+					pushes++;
+				}
+			}
+		}
+		release(c);
+		if (stats != null) {
+			stats.searched(count, relaxed, pushes, stale);
+		}
+		return count;
+	}
+
+	/**
+	 * Finds a shortest path from source to target with a bidirectional Dijkstra search. One search runs forwards
+	 * from source over the outbound edges and one runs backwards from target over the inbound edges, always growing
+	 * the smaller frontier. Every vertex labelled by both searches is a candidate meeting point, and the searches stop
+	 * as soon as the two smallest queued distances add up to at least the best candidate, so only the part of the
+	 * graph around both ends is visited. Both searches keep their labels in SearchContexts, so that part is also all
+	 * they write.
+	 * @param source - id of the start of the path
+	 * @param target - id of the end of the path
+	 * @return - ids on a shortest path from source to target, in order, or null if target cannot be reached
+	 */
+	public int[] bidirectional(int source, int target) {
+		if (negative) {
+			throw new IndexOutOfBoundsException("Negative edges are not approved");
+		}
+		if (source == target) {
+			return new int[] { source };
+		}
+		reverse();
+		SearchContext f = context();
+		SearchContext b = context();
+		LongHeap forward = f.heap;
+		LongHeap backward = b.heap;
+		f.label(source, 0, -1);
+		forward.add(0, source);
+		b.label(target, 0, -1);
+		backward.add(0, target);
+		long best = UNREACHED;
+		int meet = -1;
+		int count = 0;
+		long relaxed = 0;
+		long pushes = 2;
+		long stale = 0;
+		while (!forward.isEmpty() && !backward.isEmpty()) {
+			if ((forward.peek() >>> 32) + (backward.peek() >>> 32) >= best) {
+				break;
+			}
+			if (forward.n <= backward.n) {
+				int u = (int) forward.poll();
+				if (f.settled(u)) {
+					stale++;
+					continue;
+				}
+				f.settle(u);
+				count++;
+				relaxed += offsets[u + 1] - offsets[u];
+				for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+					int v = targets[i];
+					int d = f.dist[u] + costs[i];
+					if (d < f.dist(v)) {
+						f.label(v, d, u);
+						forward.add(d, v);
+						pushes++;
+						int dv = b.dist(v);
+						if (dv != UNREACHED && (long) d + dv < best) {
+							best = (long) d + dv;
+							meet = v;
+						}
+					}
+				}
+			} else {
+				int u = (int) backward.poll();
+				if (b.settled(u)) {
+					stale++;
+					continue;
+				}
+				b.settle(u);
+				count++;
+				relaxed += inOffsets[u + 1] - inOffsets[u];
+				for (int i = inOffsets[u]; i < inOffsets[u + 1]; i++) {
+					int v = inSources[i];
+					int d = b.dist[u] + inCosts[i];
+					if (d < b.dist(v)) {
+						b.label(v, d, u);
+						backward.add(d, v);
+						pushes++;
+						int dv = f.dist(v);
+						if (dv != UNREACHED && (long) d + dv < best) {
+							best = (long) d + dv;
+							meet = v;
+						}
+					}
+				}
+			}
+		}
+		if (stats != null) {
+			stats.searched(count, relaxed, pushes, stale);
+		}
+		int[] path = null;
+		if (meet >= 0) {
+			int[] half = f.path(meet);		//source ... meet
+			int length = half.length;
+			for (int v = b.parent[meet]; v != -1; v = b.parent[v]) {
+				length++;
+			}
+			path = Arrays.copyOf(half, length);
+			int i = half.length;
+			for (int v = b.parent[meet]; v != -1; v = b.parent[v]) {
+				path[i++] = v;
+			}
+		}
+		release(f);
+		release(b);
+		return path;
+	}
+
+	/**
+	 * Runs a 0-1 BFS from the vertex with id source. Only correct if every edge costs 0 or 1.
+	 * A vertex reached by a 0 edge goes to the front of the deque and one reached by a 1 edge to the back,
+	 * so vertices leave the deque in order of distance without a priority queue.
+	 * Fills dist and parent the same way as dijkstra.
+	 * @param source - id of the central vertex
+	 * @param dist - array of at least size() entries to be filled with distances
+	 * @param parent - array of at least size() entries to be filled with predecessors
+	 * @return - number of vertices reached, including the source
+	 */
+	public int zeroOneBFS(int source, int[] dist, int[] parent) {
+		for (int i = 0; i < size; i++) {
+			dist[i] = UNREACHED;
+			parent[i] = -1;
+		}
+		SearchContext s = context();
+		IntDeque deque = s.deque;
+		dist[source] = 0;
+		deque.addFirst(source);
+		int count = 0;
+		long relaxed = 0;
+		long pushes = 1;
+		long stale = 0;
+		while (!deque.isEmpty()) {
+			int u = deque.pollFirst();
+			if (s.settled(u)) {
+				stale++;
+				continue;
+			}
+			s.settle(u);
+			count++;
+			int du = dist[u];
+			relaxed += offsets[u + 1] - offsets[u];
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				int v = targets[i];
+				int c = costs[i];
+				if (du + c < dist[v]) {
+					dist[v] = du + c;
+					parent[v] = u;
+					if (c == 0) {
+						deque.addFirst(v);
+					} else {
+						deque.addLast(v);
+					}
+					pushes++;
+				}
+			}
+		}
+		release(s);
+		if (stats != null) {
+			stats.searched(count, relaxed, pushes, stale);
+		}
+		return count;
+	}
+
+	/**
+	 * A growable double ended queue of ints, backed by a circular array.
+	 */
+	static class IntDeque {
+		int[] items;
+		int head;
+		int n;
+
+		IntDeque(int capacity) {
+			this.items = new int[Math.max(capacity, 16)];
+			this.head = 0;
+			this.n = 0;
+		}
+
+		boolean isEmpty() {
+			return n == 0;
+		}
+
+		void clear() {
+			head = 0;
+			n = 0;
+		}
+
+		void addFirst(int x) {
+			grow();
+			head = (head - 1 + items.length) % items.length;
+			items[head] = x;
+			n++;
+		}
+
+		void addLast(int x) {
+			grow();
+			items[(head + n) % items.length] = x;
+			n++;
+		}
+
+		int pollFirst() {
+			int x = items[head];
+			head = (head + 1) % items.length;
+			n--;
+			return x;
+		}
+
+		/**
+		 * doubles the array when it is full, unrolling the circle so head is at 0 again.
+		 */
+		private void grow() {
+			if (n == items.length) {
+				int[] bigger = new int[items.length * 2];
+				for (int i = 0; i < n; i++) {
+					bigger[i] = items[(head + i) % items.length];
+				}
+				items = bigger;
+				head = 0;
+			}
+		}
+	}
+
+	/**
+	 * A binary min-heap of (distance, id) pairs packed into longs, so queue entries are never boxed.
+	 * The distance is stored in the high 32 bits, so ordering the longs orders the distances.
+	 */
+	static class LongHeap {
+		long[] heap;
+		int n;
+
+		LongHeap() {
+			this.heap = new long[64];
+			this.n = 0;
+		}
+
+		boolean isEmpty() {
+			return n == 0;
+		}
+
+		void clear() {
+			n = 0;
+		}
+
+		/**
+		 * returns the smallest entry without removing it.
+		 */
+		long peek() {
+			return heap[0];
+		}
+
+		/**
+		 * adds id to the heap with priority dist
+		 */
+		void add(int dist, int id) {
+			if (n == heap.length) {
+				heap = Arrays.copyOf(heap, n * 2);
+			}
+			long x = ((long) dist << 32) | (id & 0xffffffffL);
+			int i = n++;
+			while (i > 0) {
+				int p = (i - 1) >>> 1;
+				if (heap[p] <= x) {
+					break;
+				}
+				heap[i] = heap[p];
+				i = p;
+			}
+			heap[i] = x;
+		}
+
+		/**
+		 * removes the smallest entry. The id is the low 32 bits of the result, the distance the high 32 bits.
+		 */
+		long poll() {
+			long top = heap[0];
+			long x = heap[--n];
+			int i = 0;
+			int half = n >>> 1;
+			while (i < half) {
+				int c = 2 * i + 1;
+				if (c + 1 < n && heap[c + 1] < heap[c]) {
+					c++;
+				}
+				if (x <= heap[c]) {
+					break;
+				}
+				heap[i] = heap[c];
+				i = c;
+			}
+			heap[i] = x;
+			return top;
+		}
+	}
+}
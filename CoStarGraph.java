@@ -0,0 +1,158 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * An actor-only projection of a frozen credit graph. Actor a has an edge to actor b when a is in a movie that has b
+ * in its cast, and the edge is labelled with that movie. Following one of these edges is the same as following
+ * a -> movie (cost 0) then movie -> b (cost 1) in the full graph, so a plain BFS over the projection gives every actor
+ * the same bacon number as a 0-1 BFS over the full graph, without ever queueing a movie.
+ *
+ * The edges of each actor are grouped into one run per movie, holding the co-stars first found through that movie.
+ * Once any actor of a movie has been searched, every co-star in it has been reached, so the search skips the runs of
+ * movies that are already reached and each cast is still only scanned once.
+ *
+ * The projection uses the same ids as the full graph. Movies simply have no edges in it, so it can be handed to
+ * anything that searches a CSRGraph, such as a MultiSourceBFS. It can hold far more edges than the full graph,
+ * since a cast of n actors gives n * (n - 1) edges, so it is only built when asked for.
+ */
+public class CoStarGraph {
+	final CSRGraph full;
+	final CSRGraph graph;
+	final int[] movies;		//movie id of every edge of graph, parallel to graph.targets
+	final int[] runs;		//for every actor -> movie edge e of full, the end in graph of the co-stars found through it
+
+	private CoStarGraph(CSRGraph full, CSRGraph graph, int[] movies, int[] runs) {
+		this.full = full;
+		this.graph = graph;
+		this.movies = movies;
+		this.runs = runs;
+	}
+
+	/**
+	 * Builds the projection of g. Only a graph made entirely of credits can be projected: every edge must either cost 0
+	 * and go from an actor to a movie, or cost 1 and go from a movie to an actor, as in every graph built by readIn.
+	 * @param g - frozen credit graph
+	 * @param actors - set for the ids of actors
+	 * @return - the projection, or null if g has any other kind of edge
+	 * @throws IllegalStateException - if the projection would have too many edges to store, or to fit in memory
+	 */
+	public static CoStarGraph build(CSRGraph g, BitSet actors) {
+		for (int u = 0; u < g.size(); u++) {
+			for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+				boolean credit = g.costs[e] == 0 ? actors.get(u) && !actors.get(g.targets[e])
+						: g.costs[e] == 1 && !actors.get(u) && actors.get(g.targets[e]);
+				if (!credit) {
+					return null;
+				}
+			}
+		}
+		//count the co-stars of every actor, then fill them in, keeping the first movie that links each pair
+		int[] offsets = new int[g.size() + 1];
+		int[] mark = new int[g.size()];		//a+1 for the co-stars of actor a already found
+		for (int a = 0; a < g.size(); a++) {
+			long count = offsets[a];
+			for (int e = actors.get(a) ? g.offsets[a] : g.offsets[a + 1]; e < g.offsets[a + 1]; e++) {
+				int m = g.targets[e];
+				for (int f = g.offsets[m]; f < g.offsets[m + 1]; f++) {
+					int b = g.targets[f];
+					if (b != a && mark[b] != a + 1) {
+						mark[b] = a + 1;
+						count++;
+					}
+				}
+			}
+			if (count > Integer.MAX_VALUE - 8) {
+				throw new IllegalStateException("Too many co-star pairs to project");
+			}
+			offsets[a + 1] = (int) count;
+		}
+		Runtime runtime = Runtime.getRuntime();
+		long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		if (12L * offsets[g.size()] + 4L * g.edges() > free) {		//targets, movies and costs, plus runs
+			throw new IllegalStateException("Not enough memory for " + offsets[g.size()] + " co-star edges");
+		}
+		int[] targets = new int[offsets[g.size()]];
+		int[] movies = new int[targets.length];
+		int[] runs = new int[g.edges()];
+		Arrays.fill(mark, 0);
+		for (int a = 0; a < g.size(); a++) {
+			int j = offsets[a];
+			for (int e = actors.get(a) ? g.offsets[a] : g.offsets[a + 1]; e < g.offsets[a + 1]; e++) {
+				int m = g.targets[e];
+				for (int f = g.offsets[m]; f < g.offsets[m + 1]; f++) {
+					int b = g.targets[f];
+					if (b != a && mark[b] != a + 1) {
+						mark[b] = a + 1;
+						targets[j] = b;
+						movies[j] = m;
+						j++;
+					}
+				}
+				runs[e] = j;
+			}
+		}
+		int[] costs = new int[targets.length];
+		Arrays.fill(costs, 1);
+		return new CoStarGraph(g, new CSRGraph(offsets, targets, costs), movies, runs);
+	}
+
+	/**
+	 * @return - number of co-star edges
+	 */
+	public int edges() {
+		return this.graph.edges();
+	}
+
+	/**
+	 * Finds the distance from the actor source to every vertex of the full graph with a BFS over the projection.
+	 * Gives the same distances as CSRGraph.shortestPaths on the full graph, and a parent array that still goes
+	 * actor -> movie -> actor, so paths print the same way. Each movie takes its distance and parent from the first
+	 * actor of its cast that is reached.
+	 * @param source - id of an actor
+	 * @param dist - filled with the distance of every id, or CSRGraph.UNREACHED
+	 * @param parent - filled with the previous id on the path to every id, or -1
+	 * @return - number of vertices reached, including the source
+	 */
+	public int shortestPaths(int source, int[] dist, int[] parent) {
+		Arrays.fill(dist, CSRGraph.UNREACHED);
+		Arrays.fill(parent, -1);
+		SearchContext c = this.full.context();		//only its deque is used; dist and parent are the result
+		CSRGraph.IntDeque queue = c.deque;
+		int reached = 1;
+		long relaxed = 0;
+		long pushes = 1;
+		dist[source] = 0;
+		queue.addLast(source);
+		while (!queue.isEmpty()) {
+			int a = queue.pollFirst();
+			int start = this.graph.offsets[a];
+			relaxed += this.full.offsets[a + 1] - this.full.offsets[a];
+			for (int e = this.full.offsets[a]; e < this.full.offsets[a + 1]; e++) {
+				int m = this.full.targets[e];
+				int end = this.runs[e];
+				if (dist[m] == CSRGraph.UNREACHED) {		//first actor of this cast to be searched
+					dist[m] = dist[a];
+					parent[m] = a;
+					reached++;
+					relaxed += end - start;
+					for (int f = start; f < end; f++) {
+						int b = this.graph.targets[f];
+						if (dist[b] == CSRGraph.UNREACHED) {
+							dist[b] = dist[a] + 1;
+							parent[b] = m;
+							queue.addLast(b);
+							pushes++;
+							reached++;
+						}
+					}
+				}
+				start = end;
+			}
+		}
+		this.full.release(c);
+		if (this.full.stats != null) {
+			this.full.stats.searched(reached, relaxed, pushes, 0);
+		}
+		return reached;
+	}
+}
@@ -0,0 +1,257 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+
+/**
+ * The weakly connected components of a graph, kept in a union-find forest with union by size and path halving, so
+ * finding the component of an id takes close to constant time, and an inserted edge joins two components in place.
+ * Only union halves paths. find, together, size and actors never write, so any number of queries can share the
+ * components of a frozen graph, and of flattens the forest it builds so their walks to a root take one step.
+ *
+ * Ids in different components can never reach each other, so a search between them can be skipped. If every edge
+ * has an edge back, as in every credit graph, the reverse also holds: ids in the same component always reach each
+ * other, and the actors a center reaches are exactly the actors in its component. Removing an edge can split a
+ * component, which a union-find forest cannot undo. The graph marks the forest split instead of building a new one
+ * on every removal: ids it puts apart are still apart, so searches between them can still be skipped, but counts
+ * are not trusted again until the graph asks for the components and they are built afresh.
+ */
+public class Components {
+	int[] parent;		//parent in the forest; a root is its own parent
+	int[] size;			//vertices in the tree of each root
+	int[] actors;		//actors in the tree of each root
+	int count;
+	int unmatched;		//directed edges with no edge back; the components are symmetric while this is 0
+	boolean split;		//true once an edge or vertex has been removed, so components may be joined that are not
+
+	private Components(int n, int unmatched) {
+		this.parent = new int[n];
+		this.size = new int[n];
+		this.actors = new int[n];
+		this.count = 0;
+		this.unmatched = unmatched;
+		for (int v = 0; v < n; v++) {
+			this.parent[v] = v;
+		}
+	}
+
+	/**
+	 * Finds the components of a frozen graph with one pass over its edges.
+	 * @param g - frozen graph
+	 * @param live - set for the ids that are vertices of the graph
+	 * @param actors - set for the ids of actors
+	 * @param unmatched - number of edges of g with no edge back, 0 if they all have one
+	 * @return - the components of the live ids
+	 */
+	public static Components of(CSRGraph g, BitSet live, BitSet actors, int unmatched) {
+		Components c = new Components(g.size(), unmatched);
+		for (int v = live.nextSetBit(0); v >= 0 && v < g.size(); v = live.nextSetBit(v + 1)) {
+			c.size[v] = 1;
+			c.actors[v] = actors.get(v) ? 1 : 0;
+			c.count++;
+		}
+		for (int u = 0; u < g.size(); u++) {
+			for (int i = g.offsets[u]; i < g.offsets[u + 1]; i++) {
+				c.union(u, g.targets[i]);
+			}
+		}
+		c.flatten();
+		return c;
+	}
+
+	/**
+	 * Finds the components of a thawed graph from the edges of its vertices, so the graph need not be frozen first.
+	 * @param size - number of ids
+	 * @param byId - vertex of every live id, with its edges
+	 * @param live - set for the ids that are vertices of the graph
+	 * @param actors - set for the ids of actors
+	 * @return - the components of the live ids
+	 */
+	static Components of(int size, MyGraph.Vertex[] byId, BitSet live, BitSet actors) {
+		Components c = new Components(size, 0);
+		for (int v = live.nextSetBit(0); v >= 0 && v < size; v = live.nextSetBit(v + 1)) {
+			c.size[v] = 1;
+			c.actors[v] = actors.get(v) ? 1 : 0;
+			c.count++;
+		}
+		for (int u = live.nextSetBit(0); u >= 0 && u < size; u = live.nextSetBit(u + 1)) {
+			Iterator<MyGraph.Edge> itr = byId[u].outEdges.iterator();
+			while (itr.hasNext()) {
+				MyGraph.Vertex to = itr.next().to();
+				c.union(u, to.id);
+				if (u != to.id && !to.out.containsKey(u)) {
+					c.unmatched++;
+				}
+			}
+		}
+		c.flatten();
+		return c;
+	}
+
+	/**
+	 * Counts the edges of g that have no edge back. If there are none, ids in one component can all reach each other.
+	 * @param g - frozen graph, with its inbound edges built
+	 * @return - number of edges u -> v of g with no edge v -> u
+	 */
+	static int unmatched(CSRGraph g) {
+		boolean[] back = new boolean[g.size()];
+		int unmatched = 0;
+		for (int u = 0; u < g.size(); u++) {
+			for (int i = g.inOffsets[u]; i < g.inOffsets[u + 1]; i++) {
+				back[g.inSources[i]] = true;
+			}
+			for (int i = g.offsets[u]; i < g.offsets[u + 1]; i++) {
+				if (!back[g.targets[i]]) {
+					unmatched++;
+				}
+			}
+			for (int i = g.inOffsets[u]; i < g.inOffsets[u + 1]; i++) {
+				back[g.inSources[i]] = false;
+			}
+		}
+		return unmatched;
+	}
+
+	/**
+	 * Records a new edge from u to v, after it has been added to the graph.
+	 * @param u - origin of the edge
+	 * @param v - destination of the edge
+	 * @param back - true if the graph already had an edge from v to u
+	 */
+	void added(int u, int v, boolean back) {
+		union(u, v);
+		if (u != v) {
+			this.unmatched = this.unmatched + (back ? -1 : 1);		//either closes the pair of an edge already counted, or opens one
+		}
+	}
+
+	/**
+	 * Adds a new vertex in a component of its own.
+	 * @param id - id of the vertex, which must not be in any other vertex's component
+	 * @param actor - true if the vertex is an actor
+	 */
+	void add(int id, boolean actor) {
+		if (id >= this.parent.length) {
+			int old = this.parent.length;
+			int length = Math.max(id + 1, 2 * old);
+			this.parent = Arrays.copyOf(this.parent, length);
+			this.size = Arrays.copyOf(this.size, length);
+			this.actors = Arrays.copyOf(this.actors, length);
+			for (int v = old; v < length; v++) {
+				this.parent[v] = v;
+			}
+		}
+		this.parent[id] = id;
+		this.size[id] = 1;
+		this.actors[id] = actor ? 1 : 0;
+		this.count++;
+	}
+
+	/**
+	 * Records an edge between a and b, joining their components.
+	 * @param a - id of one end
+	 * @param b - id of the other end
+	 */
+	void union(int a, int b) {
+		int ra = root(a);
+		int rb = root(b);
+		if (ra == rb) {
+			return;
+		}
+		if (this.size[ra] < this.size[rb]) {
+			int t = ra;
+			ra = rb;
+			rb = t;
+		}
+		this.parent[rb] = ra;
+		this.size[ra] += this.size[rb];
+		this.actors[ra] += this.actors[rb];
+		this.count--;
+	}
+
+	/**
+	 * Finds the root of v's tree, halving the path to it on the way.
+	 */
+	private int root(int v) {
+		while (this.parent[v] != v) {
+			this.parent[v] = this.parent[this.parent[v]];
+			v = this.parent[v];
+		}
+		return v;
+	}
+
+	/**
+	 * Points every id straight at its root.
+	 */
+	void flatten() {
+		for (int v = 0; v < this.parent.length; v++) {
+			this.parent[v] = root(v);
+		}
+	}
+
+	/**
+	 * Finds the component of v without changing the forest, so it is safe to call from any number of threads while
+	 * no edges are being inserted. Union by size keeps every walk within log2 of the number of ids.
+	 * @param v - id of a vertex
+	 * @return - id of the root of v's component, the same for every id in it
+	 */
+	public int find(int v) {
+		while (this.parent[v] != v) {
+			v = this.parent[v];
+		}
+		return v;
+	}
+
+	/**
+	 * @param a - id of a vertex
+	 * @param b - id of another vertex
+	 * @return - true if a and b are in the same component
+	 */
+	public boolean together(int a, int b) {
+		return find(a) == find(b);
+	}
+
+	/**
+	 * @param v - id of a vertex
+	 * @return - number of vertices in v's component
+	 */
+	public int size(int v) {
+		return this.size[find(v)];
+	}
+
+	/**
+	 * @param v - id of a vertex
+	 * @return - number of actors in v's component
+	 */
+	public int actors(int v) {
+		return this.actors[find(v)];
+	}
+
+	/**
+	 * @return - number of components
+	 */
+	public int count() {
+		return this.count;
+	}
+
+	/**
+	 * @return - true if ids in one component can all reach each other
+	 */
+	public boolean isSymmetric() {
+		return this.unmatched == 0;
+	}
+
+	/**
+	 * @return - id of the root of the component with the most actors, or of the most vertices if there are no
+	 * actors, or -1 if there are no vertices
+	 */
+	public int largest() {
+		int best = -1;
+		for (int v = 0; v < this.parent.length; v++) {
+			if (this.parent[v] == v && this.size[v] > 0 && (best < 0 || this.actors[v] > this.actors[best]
+					|| (this.actors[v] == this.actors[best] && this.size[v] > this.size[best]))) {
+				best = v;
+			}
+		}
+		return best;
+	}
+}
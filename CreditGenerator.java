@@ -0,0 +1,127 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Writes synthetic credit databases of name|movie lines, in the format readIn parses, for testing at any scale
+ * without an IMDB download. The same seed always writes the same file.
+ *
+ * Like a real database, both the casts and the filmographies follow power laws. Cast sizes are drawn from a discrete
+ * Pareto distribution, so most movies have a handful of actors and a few have hundreds. Each member of a cast is
+ * actor number floor(A * u^5) for a uniform u, so actor r is picked with probability close to r^-0.8: "Actor 0" is
+ * in the most movies, and a long tail of actors are in only one. The file is written movie by movie and nothing is
+ * kept between movies, so tens of millions of lines take no more memory than a thousand.
+ *
+ * Optional islands are pairs of actors ("Island Actor 0" and "Island Actor 1", ...) who share one movie of their
+ * own, so the database has components that cannot be reached from the rest.
+ *
+ * Usage: java CreditGenerator <file> <lines> [seed] [islands]
+ */
+public class CreditGenerator {
+	/** the actor in the most movies, a good center */
+	public static final String CENTER = "Actor 0";
+	/** seed used when none is given */
+	public static final long DEFAULT_SEED = 42;
+
+	static final int MIN_CAST = 2;
+	static final int MAX_CAST = 300;
+	static final double CAST_EXPONENT = 1.3;		//P(cast >= c) falls as c^-1.3
+	static final double ACTOR_POWER = 5;			//actor r is picked with probability close to r^-(1 - 1/5)
+
+	/**
+	 * @param args - file to write, number of lines, and optionally the seed and the number of islands
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.out.println("Usage: java CreditGenerator <file> <lines> [seed] [islands]");
+			return;
+		}
+		try {
+			long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+			int islands = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+			long written = write(new File(args[0]), Long.parseLong(args[1]), seed, islands);
+			System.out.println("Wrote " + written + " lines to " + args[0] + ".");
+		} catch (NumberFormatException e) {
+			System.out.println("Lines, seed and islands must be numbers: " + e.getMessage());
+		} catch (IOException e) {
+			System.out.println("File could not be written: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes a database to file.
+	 * @param file - file to write, replacing anything in it
+	 * @param lines - number of credits to write, not counting islands
+	 * @param seed - seed for the random casts
+	 * @param islands - number of islands to add after the credits
+	 * @return - number of lines written, lines + 2 * islands
+	 * @throws IOException - if the file cannot be written
+	 */
+	public static long write(File file, long lines, long seed, int islands) throws IOException {
+		try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8),
+				1 << 16)) {
+			return write(out, lines, seed, islands);
+		}
+	}
+
+	/**
+	 * Writes a database to out.
+	 * @param out - where to write the lines
+	 * @param lines - number of credits to write, not counting islands
+	 * @param seed - seed for the random casts
+	 * @param islands - number of islands to add after the credits
+	 * @return - number of lines written, lines + 2 * islands
+	 * @throws IOException - if out cannot be written
+	 */
+	public static long write(Writer out, long lines, long seed, int islands) throws IOException {
+		Random random = new Random(seed);
+		long actors = Math.max(MIN_CAST, lines / 3);
+		long[] cast = new long[MAX_CAST];
+		StringBuilder line = new StringBuilder(64);
+		long written = 0;
+		for (long movie = 0; written < lines; movie++) {
+			int size = (int) Math.min(castSize(random), Math.min(lines - written, actors / 2 + 1));
+			for (int i = 0; i < size; i++) {
+				long actor;
+				do {		//no actor is credited twice in one movie
+					actor = (long) (actors * Math.pow(random.nextDouble(), ACTOR_POWER));
+				} while (contains(cast, i, actor));
+				cast[i] = actor;
+				line.setLength(0);
+				line.append("Actor ").append(actor).append("|Movie ").append(movie).append('\n');
+				out.append(line);
+			}
+			written += size;
+		}
+		for (int i = 0; i < islands; i++) {
+			out.append("Island Actor ").append(String.valueOf(2 * i)).append("|Island Movie ").append(String.valueOf(i)).append('\n');
+			out.append("Island Actor ").append(String.valueOf(2 * i + 1)).append("|Island Movie ").append(String.valueOf(i)).append('\n');
+		}
+		return written + 2L * islands;
+	}
+
+	/**
+	 * returns a cast size from a discrete Pareto distribution, at least MIN_CAST and at most MAX_CAST
+	 */
+	static int castSize(Random random) {
+		double c = MIN_CAST * Math.pow(1 - random.nextDouble(), -1 / CAST_EXPONENT);
+		return (int) Math.min(MAX_CAST, Math.floor(c));
+	}
+
+	/**
+	 * returns true if actor is among the first count entries of cast
+	 */
+	private static boolean contains(long[] cast, int count, long actor) {
+		for (int i = 0; i < count; i++) {
+			if (cast[i] == actor) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
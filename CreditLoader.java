@@ -0,0 +1,325 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads a database of name|movie lines into a MyGraph on several threads.
+ *
+ * The file is cut into byte ranges that end on line breaks. Each range is parsed on its own thread, by scanning
+ * the bytes for '|' and '\n' rather than with a regex, into a NamePool of the names it uses (in order of first
+ * appearance) and one pair of name numbers per line. Names are hashed and compared as raw bytes, and never turned
+ * into Strings while loading. The pools of all ranges are then merged in file order, which
+ * gives every vertex the same id it would get from inserting the lines one at a time. Finally the pairs are turned
+ * into edges on the worker threads and packed straight into a frozen CSRGraph, without building any Edge objects.
+ *
+ * A stream, such as a URL, cannot be cut into ranges, so it is read once from start to end as a single range.
+ * Either way every array grows as it fills, so the number of lines never has to be known in advance,
+ * and the progress bar counts bytes read.
+ */
+public class CreditLoader {
+	final int threads;
+
+	/**
+	 * A parsed byte range of the file.
+	 */
+	static class Chunk {
+		long start;
+		long end;
+		NamePool names = new NamePool(1024);					//names used in this range, in order of first appearance
+		boolean[] actor = new boolean[1024];					//whether each name first appeared as an actor
+		int[] pairs = new int[1024];							//name number then movie number for every line
+		int lines = 0;
+		int line = 0;											//number of lines in all earlier ranges
+		int[] ids;												//graph id of every name in names
+	}
+
+	/**
+	 * creates a loader.
+	 * @param threads - number of threads to parse with
+	 */
+	public CreditLoader(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Reads the whole file into graph, replacing what was in it. The graph is left frozen.
+	 * @param graph - graph to load into
+	 * @param file - database of name|movie lines
+	 * @return - number of lines read
+	 * @throws IOException - if the file cannot be read
+	 */
+	public int load(MyGraph graph, File file) throws IOException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); final FileChannel channel = raf.getChannel()) {
+			final Chunk[] chunks = split(channel);
+			ArrayList<Future<?>> jobs = new ArrayList<Future<?>>();
+			for (int i = 0; i < chunks.length; i++) {
+				final Chunk c = chunks[i];
+				jobs.add(pool.submit(new Runnable() {
+					public void run() {
+						try {
+							parse(channel, c);
+						} catch (IOException e) {
+							throw new RuntimeException(e);
+						}
+					}
+				}));
+			}
+			long done = 0;
+			for (int i = 0; i < jobs.size(); i++) {
+				waitFor(jobs.get(i));
+				done += chunks[i].end - chunks[i].start;
+				graph.printProgress(done, channel.size());
+			}
+			return build(graph, chunks, pool);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Reads a whole stream into graph in one pass, replacing what was in it. The graph is left frozen.
+	 * @param graph - graph to load into
+	 * @param in - stream of name|movie lines
+	 * @param length - number of bytes in the stream, or -1 if it is not known
+	 * @return - number of lines read
+	 * @throws IOException - if the stream cannot be read
+	 */
+	public int load(MyGraph graph, InputStream in, long length) throws IOException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			Chunk c = new Chunk();
+			byte[] bytes = new byte[1 << 20];
+			int filled = 0;
+			long done = 0;
+			long shown = 0;
+			int n = in.read(bytes, filled, bytes.length - filled);
+			while (n >= 0) {
+				filled += n;
+				done += n;
+				int rest = parseLines(bytes, 0, filled, c, false);
+				System.arraycopy(bytes, rest, bytes, 0, filled - rest);		//keep the unfinished last line
+				filled -= rest;
+				if (filled == bytes.length) {		//one line longer than the whole buffer
+					bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+				}
+				if (done - shown >= (1 << 20)) {
+					graph.printProgress(done, length);
+					shown = done;
+				}
+				n = in.read(bytes, filled, bytes.length - filled);
+			}
+			parseLines(bytes, 0, filled, c, true);
+			graph.printProgress(done, length < 0 ? done : length);
+			return build(graph, new Chunk[] { c }, pool);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Merges the parsed ranges and puts the graph they make into graph.
+	 * @return - number of lines in all ranges
+	 */
+	private int build(MyGraph graph, Chunk[] chunks, ExecutorService pool) throws IOException {
+		ArrayList<Future<?>> jobs = new ArrayList<Future<?>>();
+
+		//merge the names in file order, so ids come out as if the lines were inserted one at a time
+		int expected = 0;
+		for (int i = 0; i < chunks.length; i++) {
+			expected += chunks[i].names.size();
+		}
+		NamePool names = new NamePool(expected);
+		BitSet actors = new BitSet(expected);
+		int lines = 0;
+		for (int i = 0; i < chunks.length; i++) {
+			Chunk c = chunks[i];
+			NamePool local = c.names;
+			c.ids = new int[local.size()];
+			for (int j = 0; j < c.ids.length; j++) {
+				int before = names.size();
+				int id = names.add(local.bytes, local.start(j), local.length(j));
+				if (id == before && c.actor[j]) {
+					actors.set(id);
+				}
+				c.ids[j] = id;
+			}
+			c.names = null;
+			c.actor = null;
+			c.line = lines;
+			lines += c.lines;
+		}
+
+		//each line adds name -> movie with cost 0 and movie -> name with cost 1
+		final int[] from = new int[2 * lines];
+		final int[] to = new int[2 * lines];
+		final int[] cost = new int[2 * lines];
+		jobs.clear();
+		for (int i = 0; i < chunks.length; i++) {
+			final Chunk c = chunks[i];
+			jobs.add(pool.submit(new Runnable() {
+				public void run() {
+					for (int k = 0; k < c.lines; k++) {
+						int name = c.ids[c.pairs[2 * k]];
+						int movie = c.ids[c.pairs[2 * k + 1]];
+						int e = 2 * (c.line + k);
+						from[e] = name;
+						to[e] = movie;
+						cost[e] = 0;
+						from[e + 1] = movie;
+						to[e + 1] = name;
+						cost[e + 1] = 1;
+					}
+					c.pairs = null;
+				}
+			}));
+		}
+		for (int i = 0; i < jobs.size(); i++) {
+			waitFor(jobs.get(i));
+		}
+
+		CSRGraph g = CSRGraph.fromEdges(names.size(), from, to, cost, 2 * lines);
+		BitSet live = new BitSet(names.size());
+		live.set(0, names.size());
+		int inf = 0;
+		for (int i = 0; i < g.edges(); i++) {
+			inf = inf + g.costs[i];
+		}
+		graph.install(names, live, actors, g, inf);
+		return lines;
+	}
+
+	/**
+	 * Cuts the file into about four ranges per thread, each ending just after a line break.
+	 */
+	private Chunk[] split(FileChannel channel) throws IOException {
+		long size = channel.size();
+		int count = (int) Math.max(1, Math.min(4L * threads, size / 4096));
+		count = (int) Math.max(count, size / (256L << 20) + 1);		//keep every range well below 2GB
+		ArrayList<Chunk> chunks = new ArrayList<Chunk>();
+		long start = 0;
+		ByteBuffer one = ByteBuffer.allocate(4096);
+		for (int i = 1; i <= count && start < size; i++) {
+			long end = size;
+			if (i < count) {
+				end = Math.max(start, size * i / count);
+				boolean found = false;
+				while (!found && end < size) {		//move end forward to just after the next line break
+					one.clear();
+					int n = channel.read(one, end);
+					for (int j = 0; j < n && !found; j++) {
+						end++;
+						found = one.get(j) == '\n';
+					}
+				}
+			}
+			if (end > start) {
+				Chunk c = new Chunk();
+				c.start = start;
+				c.end = end;
+				chunks.add(c);
+			}
+			start = end;
+		}
+		return chunks.toArray(new Chunk[chunks.size()]);
+	}
+
+	/**
+	 * Reads and parses one range of the file.
+	 */
+	private static void parse(FileChannel channel, Chunk c) throws IOException {
+		byte[] bytes = new byte[(int) (c.end - c.start)];
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, c.start + buffer.position()) < 0) {
+				break;
+			}
+		}
+		parseLines(bytes, 0, bytes.length, c, true);
+	}
+
+	/**
+	 * Parses the lines in bytes[from] ... bytes[to - 1] into c. Lines without a '|' are skipped. As with String.split,
+	 * anything after a second '|' is ignored.
+	 * @param last - true if there is nothing after to, so a last line without a line break is complete
+	 * @return - index of the first byte not parsed, which is the start of an unfinished last line if last is false
+	 */
+	private static int parseLines(byte[] bytes, int from, int to, Chunk c, boolean last) {
+		int i = from;
+		while (i < to) {
+			int lineEnd = i;
+			int bar = -1;
+			while (lineEnd < to && bytes[lineEnd] != '\n') {
+				if (bytes[lineEnd] == '|' && bar < 0) {
+					bar = lineEnd;
+				}
+				lineEnd++;
+			}
+			if (lineEnd == to && !last) {
+				return i;
+			}
+			int end = lineEnd;
+			if (end > i && bytes[end - 1] == '\r') {
+				end--;
+			}
+			if (bar > i) {
+				int movieEnd = bar + 1;
+				while (movieEnd < end && bytes[movieEnd] != '|') {
+					movieEnd++;
+				}
+				if (movieEnd > bar + 1) {
+					if (2 * c.lines + 2 > c.pairs.length) {
+						c.pairs = Arrays.copyOf(c.pairs, 2 * c.pairs.length);
+					}
+					c.pairs[2 * c.lines] = number(c, bytes, i, bar - i, true);
+					c.pairs[2 * c.lines + 1] = number(c, bytes, bar + 1, movieEnd - bar - 1, false);
+					c.lines++;
+				}
+			}
+			i = lineEnd + 1;
+		}
+		return Math.min(i, to);
+	}
+
+	/**
+	 * Returns the number within its range of the name in bytes[off] ... bytes[off + len - 1], adding it if it is new.
+	 */
+	private static int number(Chunk c, byte[] bytes, int off, int len, boolean actor) {
+		int before = c.names.size();
+		int n = c.names.add(bytes, off, len);
+		if (n == before) {
+			if (n == c.actor.length) {
+				c.actor = Arrays.copyOf(c.actor, 2 * n);
+			}
+			c.actor[n] = actor;
+		}
+		return n;
+	}
+
+	/**
+	 * waits for a job to finish, rethrowing anything it threw.
+	 */
+	private static void waitFor(Future<?> job) throws IOException {
+		try {
+			job.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading", e);
+		} catch (ExecutionException e) {
+			if (e.getCause().getCause() instanceof IOException) {
+				throw (IOException) e.getCause().getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+}
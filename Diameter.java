@@ -0,0 +1,227 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The diameter of the largest component of a frozen graph: the longest of all the shortest paths between two of its
+ * vertices, found with the iFUB (iterative fringe upper bound) method of Crescenzi et al. and Takes and Kosters.
+ *
+ * Only the vertices in a given set count as ends of a path, so a credit graph can be measured between actors alone.
+ * A double sweep first picks a central vertex u: a search from a busy vertex finds a far vertex a, a search from a
+ * finds the vertex b farthest from a, and u is the middle of the path from a to b. The vertices are then grouped into
+ * fringes by their distance from u and the eccentricity of every vertex is found one fringe at a time, farthest first.
+ * Any two vertices left at distance at most D from u are at most 2D apart, so as soon as the longest path found
+ * reaches twice the distance of the next fringe no other vertex can beat it. On graphs shaped like actor networks
+ * this needs only a handful of searches instead of one per vertex.
+ *
+ * The bound needs the distance from x to y to equal the distance from y to x. That holds for undirected graphs, and
+ * between actors of a credit graph where every credit goes both ways. For any other graph every vertex of the
+ * component is searched instead.
+ */
+public class Diameter {
+	final int length;
+	final int from;
+	final int to;
+	final int size;
+	final int searches;
+
+	private Diameter(int length, int from, int to, int size, int searches) {
+		this.length = length;
+		this.from = from;
+		this.to = to;
+		this.size = size;
+		this.searches = searches;
+	}
+
+	/**
+	 * Finds the diameter of the component of g holding the most vertices of among.
+	 * @param g - frozen graph, with no negative edges
+	 * @param among - ids that count as ends of a path
+	 * @param components - the components of g, as the graph keeps them
+	 * @return - the diameter, or null if among is empty
+	 */
+	public static Diameter of(CSRGraph g, BitSet among, Components components) {
+		g.reverse();
+		int[] count = new int[g.size()];
+		int largest = -1;
+		for (int v = among.nextSetBit(0); v >= 0 && v < g.size(); v = among.nextSetBit(v + 1)) {
+			int r = components.find(v);
+			count[r]++;
+			if (largest < 0 || count[r] > count[largest]) {
+				largest = r;
+			}
+		}
+		if (largest < 0) {
+			return null;
+		}
+		BitSet ends = new BitSet(g.size());
+		for (int v = among.nextSetBit(0); v >= 0 && v < g.size(); v = among.nextSetBit(v + 1)) {
+			if (components.find(v) == largest) {
+				ends.set(v);
+			}
+		}
+		Diameter d = symmetric(g, among) ? fringes(g, ends) : everyVertex(g, ends);
+		return new Diameter(d.length, d.from, d.to, count[largest], d.searches);
+	}
+
+	/**
+	 * @return - length of the longest shortest path
+	 */
+	public int length() {
+		return this.length;
+	}
+
+	/**
+	 * @return - id at the start of one longest shortest path
+	 */
+	public int from() {
+		return this.from;
+	}
+
+	/**
+	 * @return - id at the end of that path
+	 */
+	public int to() {
+		return this.to;
+	}
+
+	/**
+	 * @return - number of path ends in the largest component
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return - number of single source searches it took
+	 */
+	public int searches() {
+		return this.searches;
+	}
+
+	/**
+	 * the iFUB search over the ends of the largest component, which must have symmetric distances
+	 */
+	private static Diameter fringes(CSRGraph g, BitSet ends) {
+		int[] dist = new int[g.size()];
+		int[] parent = new int[g.size()];
+		int start = ends.nextSetBit(0);
+		for (int v = ends.nextSetBit(0); v >= 0; v = ends.nextSetBit(v + 1)) {
+			if (g.degree(v) > g.degree(start)) {
+				start = v;
+			}
+		}
+		int searches = 0;
+		//double sweep: start -> a, the farthest end from start, then a -> b, the farthest end from a
+		g.shortestPaths(start, dist, parent);
+		int a = farthest(dist, ends);
+		g.shortestPaths(a, dist, parent);
+		int b = farthest(dist, ends);
+		int lower = dist[b];
+		int from = a;
+		int to = b;
+		searches += 2;
+		int u = b;		//the end on the path from a to b nearest its middle
+		for (int v = b; v != -1; v = parent[v]) {
+			if (ends.get(v) && Math.abs(2 * dist[v] - lower) < Math.abs(2 * dist[u] - lower)) {
+				u = v;
+			}
+		}
+		g.shortestPaths(u, dist, parent);
+		searches++;
+		int top = dist[farthest(dist, ends)];
+		//sort the ends into fringes by distance from u, farthest first
+		long[] order = new long[ends.cardinality()];
+		int n = 0;
+		for (int v = ends.nextSetBit(0); v >= 0; v = ends.nextSetBit(v + 1)) {
+			order[n++] = ((long) (top - dist[v]) << 32) | v;
+		}
+		Arrays.sort(order);
+		int[] du = Arrays.copyOf(dist, dist.length);
+		if (top > lower) {
+			lower = top;
+			from = u;
+			to = farthest(dist, ends);
+		}
+		for (int i = 0; i < n; i++) {
+			int v = (int) order[i];
+			if (lower >= 2 * du[v]) {		//no two ends this close to u can be further apart than lower
+				break;
+			}
+			g.shortestPaths(v, dist, parent);
+			searches++;
+			int w = farthest(dist, ends);
+			if (dist[w] > lower) {
+				lower = dist[w];
+				from = v;
+				to = w;
+			}
+		}
+		return new Diameter(lower, from, to, n, searches);
+	}
+
+	/**
+	 * searches from every end of the component, for graphs whose distances are not symmetric
+	 */
+	private static Diameter everyVertex(CSRGraph g, BitSet ends) {
+		int[] dist = new int[g.size()];
+		int[] parent = new int[g.size()];
+		int length = -1;
+		int from = -1;
+		int to = -1;
+		int searches = 0;
+		for (int v = ends.nextSetBit(0); v >= 0; v = ends.nextSetBit(v + 1)) {
+			g.shortestPaths(v, dist, parent);
+			searches++;
+			int w = farthest(dist, ends);
+			if (dist[w] > length) {
+				length = dist[w];
+				from = v;
+				to = w;
+			}
+		}
+		return new Diameter(length, from, to, ends.cardinality(), searches);
+	}
+
+	/**
+	 * returns the reached end with the greatest distance
+	 */
+	private static int farthest(int[] dist, BitSet ends) {
+		int far = -1;
+		for (int v = ends.nextSetBit(0); v >= 0; v = ends.nextSetBit(v + 1)) {
+			if (dist[v] != CSRGraph.UNREACHED && (far < 0 || dist[v] > dist[far])) {
+				far = v;
+			}
+		}
+		return far;
+	}
+
+	/**
+	 * Returns true if the distance between any two ids of among is the same both ways. Every edge u -> v must have an
+	 * edge v -> u back, and either every pair of edges costs the same both ways, or every pair is the two edges of a
+	 * credit between an actor in among and a movie outside it, costing 0 and 1.
+	 */
+	static boolean symmetric(CSRGraph g, BitSet among) {
+		boolean same = true;
+		boolean credits = true;
+		int[] back = new int[g.size()];		//cost + 1 of the edge from each target back to u
+		for (int u = 0; u < g.size(); u++) {
+			for (int i = g.inOffsets[u]; i < g.inOffsets[u + 1]; i++) {
+				back[g.inSources[i]] = g.inCosts[i] + 1;
+			}
+			for (int i = g.offsets[u]; i < g.offsets[u + 1]; i++) {
+				int v = g.targets[i];
+				if (back[v] == 0) {
+					return false;
+				}
+				int c = back[v] - 1;
+				same = same && c == g.costs[i];
+				credits = credits && among.get(u) != among.get(v)
+						&& (among.get(u) ? g.costs[i] == 0 && c == 1 : g.costs[i] == 1 && c == 0);
+			}
+			for (int i = g.inOffsets[u]; i < g.inOffsets[u + 1]; i++) {
+				back[g.inSources[i]] = 0;
+			}
+		}
+		return same || credits;
+	}
+}
@@ -0,0 +1,185 @@
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Keeps the shortest path tree of one center up to date while the edges of a MyGraph change, repairing only the part
+ * of the tree a change can affect instead of searching the whole graph again, in the style of Ramalingam and Reps.
+ *
+ * When an edge gets cheaper, or a new edge appears, only vertices whose distance drops can change, so a Dijkstra
+ * search is started from the head of that edge and stops wherever it no longer improves anything.
+ * When a tree edge is removed or gets dearer, only the subtree hanging from it can change. Those vertices are
+ * cleared, seeded with the best distance through any edge coming in from outside the subtree, and settled again with
+ * a Dijkstra search that stays inside the subtree. Changing an edge that is not in the tree cannot lengthen any path.
+ *
+ * The repairs walk the per-vertex edge maps of the thawed graph, since those are what a change updates. The tree
+ * handed out shares the arrays the repairs write to, so it is never copied, and always shows the latest repair.
+ */
+public class DynamicPaths {
+	final MyGraph graph;
+	final int source;
+	int[] dist;
+	int[] parent;
+	ShortestPathTree tree;		//view of dist and parent handed out, or null once they are replaced by grow
+	final CSRGraph.LongHeap heap;
+	SearchContext inside;		//settles the ids of the subtree being repaired, so nothing is cleared between repairs
+
+	/**
+	 * starts keeping the tree of a search up to date.
+	 * @param graph - graph the search was run on
+	 * @param start - the search from the center
+	 */
+	DynamicPaths(MyGraph graph, ShortestPathTree start) {
+		this.graph = graph;
+		this.source = start.source();
+		this.dist = Arrays.copyOf(start.dist, start.size());
+		this.parent = Arrays.copyOf(start.parent, start.size());
+		this.tree = null;
+		this.heap = new CSRGraph.LongHeap();
+		this.inside = new SearchContext(this.dist.length);
+	}
+
+	/**
+	 * @return - the current tree, over the arrays the repairs write to. The same tree is returned, and kept up to date,
+	 * until new ids outgrow the arrays.
+	 */
+	ShortestPathTree tree() {
+		if (this.tree == null) {
+			this.tree = new ShortestPathTree(this.source, this.dist, this.parent);
+		}
+		return this.tree;
+	}
+
+	/**
+	 * Makes room for ids added to the graph since the search. New ids start unreached.
+	 * @param size - number of ids in the graph
+	 */
+	void grow(int size) {
+		if (size > this.dist.length) {
+			int old = this.dist.length;
+			this.dist = Arrays.copyOf(this.dist, Math.max(size, 2 * old));
+			this.parent = Arrays.copyOf(this.parent, this.dist.length);
+			Arrays.fill(this.dist, old, this.dist.length, CSRGraph.UNREACHED);
+			Arrays.fill(this.parent, old, this.parent.length, -1);
+			this.inside = new SearchContext(this.dist.length);
+			this.tree = null;
+		}
+	}
+
+	/**
+	 * Repairs the tree after the edge from u to v was added, or got cheaper.
+	 * @param u - id of the origin of the edge
+	 * @param v - id of the destination of the edge
+	 * @param cost - new cost of the edge
+	 */
+	void decreased(int u, int v, int cost) {
+		if (this.dist[u] == CSRGraph.UNREACHED || this.dist[u] + cost >= this.dist[v]) {
+			return;
+		}
+		this.dist[v] = this.dist[u] + cost;
+		this.parent[v] = u;
+		this.heap.add(this.dist[v], v);
+		settle(null);
+	}
+
+	/**
+	 * Finds the vertices that can be affected by removing the edge from u to v, or making it dearer. Must be called
+	 * before the edge changes.
+	 * @param u - id of the origin of the edge
+	 * @param v - id of the destination of the edge
+	 * @return - ids of the subtree hanging from the edge, or null if it is not a tree edge
+	 */
+	int[] affected(int u, int v) {
+		if (v >= this.parent.length || this.parent[v] != u) {
+			return null;
+		}
+		return subtree(v);
+	}
+
+	/**
+	 * Finds the subtree hanging from v, including v. Must be called before the graph changes.
+	 * @param v - id of the root of the subtree
+	 * @return - ids of the subtree
+	 */
+	int[] subtree(int v) {
+		int[] found = new int[16];
+		int count = 0;
+		found[count++] = v;
+		for (int i = 0; i < count; i++) {
+			int x = found[i];
+			Iterator<MyGraph.Edge> itr = this.graph.vertex(x).getEdges().iterator();
+			while (itr.hasNext()) {
+				int y = itr.next().to().id;
+				if (this.parent[y] == x) {		//every id has one parent, so each one is found once
+					if (count == found.length) {
+						found = Arrays.copyOf(found, 2 * count);
+					}
+					found[count++] = y;
+				}
+			}
+		}
+		return Arrays.copyOf(found, count);
+	}
+
+	/**
+	 * Repairs the tree after a change that can only lengthen the paths to the given vertices.
+	 * @param affected - ids found by affected or subtree before the change, or null if nothing was affected
+	 */
+	void increased(int[] affected) {
+		if (affected == null) {
+			return;
+		}
+		SearchContext inside = this.inside;
+		inside.begin();
+		for (int i = 0; i < affected.length; i++) {
+			int y = affected[i];
+			inside.settle(y);
+			this.dist[y] = CSRGraph.UNREACHED;
+			this.parent[y] = -1;
+		}
+		for (int i = 0; i < affected.length; i++) {
+			int y = affected[i];
+			MyGraph.Vertex vy = this.graph.vertex(y);
+			if (vy == null) {		//removed, so it stays unreached
+				continue;
+			}
+			Iterator<MyGraph.Edge> itr = vy.in.values().iterator();
+			while (itr.hasNext()) {
+				MyGraph.Edge e = itr.next();
+				int z = e.from().id;
+				if (!inside.settled(z) && this.dist[z] != CSRGraph.UNREACHED && this.dist[z] + e.cost() < this.dist[y]) {
+					this.dist[y] = this.dist[z] + e.cost();
+					this.parent[y] = z;
+				}
+			}
+			if (this.dist[y] != CSRGraph.UNREACHED) {
+				this.heap.add(this.dist[y], y);
+			}
+		}
+		settle(inside);
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm from whatever is in the heap, relaxing edges only while they improve a distance.
+	 * @param inside - if not null, only the ids it has settled may change
+	 */
+	private void settle(SearchContext inside) {
+		while (!this.heap.isEmpty()) {
+			long top = this.heap.poll();
+			int d = (int) (top >>> 32);
+			int x = (int) top;
+			if (d != this.dist[x]) {		//stale entry
+				continue;
+			}
+			Iterator<MyGraph.Edge> itr = this.graph.vertex(x).getEdges().iterator();
+			while (itr.hasNext()) {
+				MyGraph.Edge e = itr.next();
+				int y = e.to().id;
+				if ((inside == null || inside.settled(y)) && d + e.cost() < this.dist[y]) {
+					this.dist[y] = d + e.cost();
+					this.parent[y] = x;
+					this.heap.add(this.dist[y], y);
+				}
+			}
+		}
+	}
+}
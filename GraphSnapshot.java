@@ -0,0 +1,197 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+
+/**
+ * A fast binary cache of a frozen MyGraph, so a database only has to be parsed from text the first time it is
+ * loaded. It is not a memory-mapped graph: the graph is always held in heap arrays, and the file is only mapped
+ * while they are read out of it.
+ *
+ * The file holds a header, then the NamePool of the graph exactly as it is in memory (the start and hash of every
+ * name, its hash table, and the UTF-8 bytes of the names), then one flag byte per id saying whether the id is empty,
+ * a movie, or an actor, then the CSR arrays of the graph. Every section starts on a 4 byte boundary so the int arrays
+ * can be copied straight out of the mapped file, and no name has to be decoded or hashed again to read it.
+ *
+ * Reading saves the parsing, not memory. Every section is bulk-copied into the plain arrays NamePool and CSRGraph
+ * are made of, which every search indexes directly, so a graph read from a snapshot takes as much heap as one read
+ * from text.
+ *
+ * The header records the length and modification time of the text file the graph was read from, so a snapshot
+ * is only used while that file is unchanged. A snapshot is written to a temporary file and only renamed into place
+ * once all of it is on disk, so a load that dies part way through never leaves a snapshot that looks current.
+ */
+public class GraphSnapshot {
+	static final int MAGIC = 0x4241434E;		//"BACN"
+	static final int VERSION = 2;
+	static final int HEADER = 52;
+	static final byte EMPTY = 0;
+	static final byte MOVIE = 1;
+	static final byte ACTOR = 2;
+
+	/**
+	 * Returns the snapshot file that goes with a text database.
+	 * @param source - path of the text database
+	 * @return - file next to source, with .snapshot appended to its name
+	 */
+	public static File fileFor(String source) {
+		return new File(source + ".snapshot");
+	}
+
+	/**
+	 * Returns true if snapshot exists and was written from source as it is now.
+	 * @param snapshot - snapshot file to check
+	 * @param source - text database the snapshot should have been made from
+	 * @return - true if the snapshot can be used instead of reading source
+	 */
+	public static boolean isCurrent(File snapshot, File source) {
+		if (!snapshot.isFile() || !source.isFile() || snapshot.length() < HEADER) {
+			return false;
+		}
+		try (RandomAccessFile file = new RandomAccessFile(snapshot, "r")) {
+			return file.readInt() == MAGIC && file.readInt() == VERSION
+					&& file.readLong() == source.length() && file.readLong() == source.lastModified();
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Writes graph to snapshot. The graph is frozen first. The snapshot is written to a .tmp file next to it,
+	 * forced to disk, then moved over snapshot in one step, so snapshot is either the old file or the whole new one.
+	 * @param graph - graph to save
+	 * @param source - text database the graph was read from
+	 * @param snapshot - file to write
+	 * @throws IOException - if the file cannot be written
+	 */
+	public static void write(MyGraph graph, File source, File snapshot) throws IOException {
+		File temp = new File(snapshot.getPath() + ".tmp");
+		try {
+			write(graph, source.length(), source.lastModified(), temp);
+			try {
+				Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Writes graph to file, for a text database of the given length and modification time.
+	 */
+	private static void write(MyGraph graph, long length, long modified, File snapshot) throws IOException {
+		CSRGraph g = graph.freeze();
+		NamePool pool = graph.names;
+		int ids = g.size();
+		byte[] flags = new byte[ids];
+		for (int i = graph.live.nextSetBit(0); i >= 0 && i < ids; i = graph.live.nextSetBit(i + 1)) {
+			flags[i] = MOVIE;
+		}
+		for (int i = graph.nextActor(0); i >= 0 && i < ids; i = graph.nextActor(i + 1)) {
+			flags[i] = ACTOR;
+		}
+		int poolSize = pool.starts[ids];
+		int tableSize = pool.table.length;
+		int m = g.edges();
+		long size = HEADER + 4L * (ids + 1) + 4L * ids + 4L * tableSize + pad(poolSize) + pad(ids) + 4L * (ids + 1) + 8L * m;
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("Graph is too large for a snapshot");
+		}
+		snapshot.delete();
+		try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw"); FileChannel channel = file.getChannel()) {
+			MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			out.putInt(MAGIC).putInt(VERSION).putLong(length).putLong(modified);
+			out.putInt(ids).putInt(graph.numVertex).putInt(graph.numEdges).putInt(graph.INF).putInt(m).putInt(poolSize);
+			out.putInt(tableSize);
+			IntBuffer ints = out.asIntBuffer();
+			ints.put(pool.starts, 0, ids + 1);
+			ints.put(pool.hashes, 0, ids);
+			ints.put(pool.table, 0, tableSize);
+			out.position(out.position() + 4 * ints.position());
+			out.put(pool.bytes, 0, poolSize);
+			out.position(out.position() + (int) (pad(poolSize) - poolSize));
+			out.put(flags);
+			out.position(out.position() + (int) (pad(ids) - ids));
+			ints = out.asIntBuffer();
+			ints.put(g.offsets, 0, ids + 1);
+			ints.put(g.targets, 0, m);
+			ints.put(g.costs, 0, m);
+			out.force();
+		}
+	}
+
+	/**
+	 * Replaces the contents of graph with the graph saved in snapshot. The graph is left frozen. The sections are
+	 * copied out of the mapping into new arrays, so nothing stays mapped once this returns.
+	 * @param graph - graph to load into
+	 * @param snapshot - file written by write
+	 * @throws IOException - if the file cannot be read, or is not a snapshot
+	 */
+	public static void read(MyGraph graph, File snapshot) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(snapshot, "r"); FileChannel channel = file.getChannel()) {
+			MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+				throw new IOException("Not a graph snapshot: " + snapshot);
+			}
+			in.getLong();
+			in.getLong();
+			int ids = in.getInt();
+			int numVertex = in.getInt();
+			int numEdges = in.getInt();
+			int inf = in.getInt();
+			int m = in.getInt();
+			int poolSize = in.getInt();
+			int tableSize = in.getInt();
+			int[] starts = new int[ids + 1];
+			int[] hashes = new int[ids];
+			int[] table = new int[tableSize];
+			IntBuffer ints = in.asIntBuffer();
+			ints.get(starts);
+			ints.get(hashes);
+			ints.get(table);
+			in.position(in.position() + 4 * ints.position());
+			byte[] pool = new byte[poolSize];
+			in.get(pool);
+			in.position(in.position() + (int) (pad(poolSize) - poolSize));
+			byte[] flags = new byte[ids];
+			in.get(flags);
+			in.position(in.position() + (int) (pad(ids) - ids));
+			ints = in.asIntBuffer();
+			int[] offsets = new int[ids + 1];
+			int[] targets = new int[m];
+			int[] costs = new int[m];
+			ints.get(offsets);
+			ints.get(targets);
+			ints.get(costs);
+
+			BitSet live = new BitSet(ids);
+			BitSet actors = new BitSet(ids);
+			for (int i = 0; i < ids; i++) {
+				if (flags[i] != EMPTY) {		//empty ids keep their place, so every id stays the same
+					live.set(i);
+				}
+				if (flags[i] == ACTOR) {
+					actors.set(i);
+				}
+			}
+			graph.install(new NamePool(pool, starts, hashes, table, ids), live, actors, new CSRGraph(offsets, targets, costs), inf);
+			graph.numVertex = numVertex;
+			graph.numEdges = numEdges;
+		}
+	}
+
+	/**
+	 * rounds n up to a multiple of 4
+	 */
+	private static long pad(long n) {
+		return (n + 3) & ~3L;
+	}
+}
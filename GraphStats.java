@@ -0,0 +1,246 @@
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms for the hot paths of a MyGraph, cheap enough to leave on all the time.
+ *
+ * Searches count into local variables and add them here once when they finish, so the inner loops pay nothing
+ * extra. Everything is kept in LongAdders, which worker threads can add to at once without contending on one
+ * memory location. Latencies go into histograms with one bucket per power of two nanoseconds, so recording one is
+ * a few additions, and percentiles are reported as the top of their bucket: never under the true value, and at
+ * most twice it.
+ *
+ * The same numbers are printed by the stats command, and can be watched through JMX once register is called.
+ */
+public class GraphStats implements GraphStatsMBean {
+	/** name the stats are registered under in the platform MBean server */
+	public static final String NAME = "bacon:type=GraphStats";
+
+	final LongAdder searches = new LongAdder();
+	final LongAdder settled = new LongAdder();
+	final LongAdder relaxed = new LongAdder();
+	final LongAdder pushes = new LongAdder();
+	final LongAdder stale = new LongAdder();
+	final LongAdder hits = new LongAdder();
+	final LongAdder misses = new LongAdder();
+	final LongAdder lines = new LongAdder();
+	final LongAdder loadNanos = new LongAdder();
+	final ConcurrentHashMap<String, Histogram> latencies = new ConcurrentHashMap<String, Histogram>();
+
+	/**
+	 * Adds the work of one finished search.
+	 * @param settled - vertices settled
+	 * @param relaxed - edges looked at
+	 * @param pushes - vertices added to the heap or deque
+	 * @param stale - entries taken off for vertices already settled
+	 */
+	void searched(long settled, long relaxed, long pushes, long stale) {
+		this.searches.increment();
+		this.settled.add(settled);
+		this.relaxed.add(relaxed);
+		this.pushes.add(pushes);
+		this.stale.add(stale);
+	}
+
+	/**
+	 * Counts a dijkstra call.
+	 * @param hit - true if the search cache had the answer
+	 */
+	void cached(boolean hit) {
+		if (hit) {
+			this.hits.increment();
+		} else {
+			this.misses.increment();
+		}
+	}
+
+	/**
+	 * Adds a finished load of a text database or URL.
+	 * @param lines - lines read
+	 * @param nanos - time it took
+	 */
+	void loaded(long lines, long nanos) {
+		this.lines.add(lines);
+		this.loadNanos.add(nanos);
+	}
+
+	/**
+	 * Records how long one run of an operation took.
+	 * @param name - name of the operation, such as a command
+	 * @param nanos - time it took
+	 */
+	public void time(String name, long nanos) {
+		Histogram h = this.latencies.get(name);
+		if (h == null) {
+			this.latencies.putIfAbsent(name, new Histogram());
+			h = this.latencies.get(name);
+		}
+		h.record(nanos);
+	}
+
+	/**
+	 * Registers the stats with the platform MBean server under NAME, replacing any registered before.
+	 * @throws JMException - if they cannot be registered
+	 */
+	public void register() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(NAME);
+		if (server.isRegistered(name)) {
+			server.unregisterMBean(name);
+		}
+		server.registerMBean(this, name);
+	}
+
+	public long getSearches() {
+		return this.searches.sum();
+	}
+
+	public long getVerticesSettled() {
+		return this.settled.sum();
+	}
+
+	public long getEdgesRelaxed() {
+		return this.relaxed.sum();
+	}
+
+	public long getQueuePushes() {
+		return this.pushes.sum();
+	}
+
+	public long getStalePops() {
+		return this.stale.sum();
+	}
+
+	public long getSearchCacheHits() {
+		return this.hits.sum();
+	}
+
+	public long getSearchCacheMisses() {
+		return this.misses.sum();
+	}
+
+	public long getLinesRead() {
+		return this.lines.sum();
+	}
+
+	public double getLinesPerSecond() {
+		long nanos = this.loadNanos.sum();
+		return nanos == 0 ? 0 : this.lines.sum() * 1e9 / nanos;
+	}
+
+	public String[] getLatencies() {
+		Map<String, Histogram> sorted = new TreeMap<String, Histogram>(this.latencies);
+		String[] lines = new String[sorted.size()];
+		int i = 0;
+		Iterator<Map.Entry<String, Histogram>> itr = sorted.entrySet().iterator();
+		while (itr.hasNext()) {
+			Map.Entry<String, Histogram> e = itr.next();
+			lines[i++] = String.format("%-12s %s", e.getKey(), e.getValue());
+		}
+		return lines;
+	}
+
+	/**
+	 * returns the stats as lines of text, in the format:
+	 * (counter)    (value)
+	 * followed by one line per timed operation
+	 */
+	public String report() {
+		String r = "";
+		r = r + String.format("%-20s %,d", "Searches", getSearches()) + "\n";
+		r = r + String.format("%-20s %,d", "Vertices settled", getVerticesSettled()) + "\n";
+		r = r + String.format("%-20s %,d", "Edges relaxed", getEdgesRelaxed()) + "\n";
+		r = r + String.format("%-20s %,d", "Queue pushes", getQueuePushes()) + "\n";
+		r = r + String.format("%-20s %,d", "Stale pops", getStalePops()) + "\n";
+		r = r + String.format("%-20s %,d hits, %,d misses", "Search cache", getSearchCacheHits(), getSearchCacheMisses()) + "\n";
+		r = r + String.format("%-20s %,d (%,.0f lines/sec)", "Lines read", getLinesRead(), getLinesPerSecond()) + "\n";
+		String[] latencies = getLatencies();
+		if (latencies.length > 0) {
+			r = r + String.format("%-12s %8s %10s %10s %10s %10s", "Latency (ms)", "count", "mean", "p50", "p99", "max") + "\n";
+			for (int i = 0; i < latencies.length; i++) {
+				r = r + latencies[i] + "\n";
+			}
+		}
+		return r;
+	}
+
+	public void reset() {
+		this.searches.reset();
+		this.settled.reset();
+		this.relaxed.reset();
+		this.pushes.reset();
+		this.stale.reset();
+		this.hits.reset();
+		this.misses.reset();
+		this.lines.reset();
+		this.loadNanos.reset();
+		this.latencies.clear();
+	}
+
+	/**
+	 * A latency histogram with one bucket per power of two nanoseconds.
+	 */
+	static class Histogram {
+		final LongAdder[] buckets = new LongAdder[64];		//bucket b counts latencies from 2^b up to 2^(b + 1) - 1
+		final LongAdder count = new LongAdder();
+		final LongAdder total = new LongAdder();
+		final AtomicLong max = new AtomicLong();
+
+		Histogram() {
+			for (int b = 0; b < this.buckets.length; b++) {
+				this.buckets[b] = new LongAdder();
+			}
+		}
+
+		void record(long nanos) {
+			nanos = Math.max(1, nanos);
+			this.buckets[63 - Long.numberOfLeadingZeros(nanos)].increment();
+			this.count.increment();
+			this.total.add(nanos);
+			long m = this.max.get();
+			while (nanos > m && !this.max.compareAndSet(m, nanos)) {
+				m = this.max.get();
+			}
+		}
+
+		/**
+		 * @param p - fraction of the runs, from 0 to 1
+		 * @return - nanoseconds that at least p of the runs took no longer than, rounded up to the top of a bucket
+		 */
+		long percentile(double p) {
+			long[] counts = new long[this.buckets.length];
+			long n = 0;
+			for (int b = 0; b < counts.length; b++) {
+				counts[b] = this.buckets[b].sum();
+				n += counts[b];
+			}
+			long seen = 0;
+			for (int b = 0; b < counts.length; b++) {
+				seen += counts[b];
+				if (seen > 0 && seen >= p * n) {
+					return Math.min(this.max.get(), (2L << b) - 1);
+				}
+			}
+			return this.max.get();
+		}
+
+		/**
+		 * returns the count, then the mean, median, 99th percentile and longest latency in milliseconds
+		 */
+		public String toString() {
+			long n = this.count.sum();
+			double mean = n == 0 ? 0 : this.total.sum() / 1e6 / n;
+			return String.format("%8d %10.3f %10.3f %10.3f %10.3f", n, mean, percentile(0.5) / 1e6, percentile(0.99) / 1e6,
+					this.max.get() / 1e6);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * The attributes and operations of GraphStats seen through JMX, for example in jconsole under bacon:type=GraphStats.
+ */
+public interface GraphStatsMBean {
+	/**
+	 * @return - number of single source and pair searches run
+	 */
+	long getSearches();
+
+	/**
+	 * @return - number of vertices settled by all searches
+	 */
+	long getVerticesSettled();
+
+	/**
+	 * @return - number of edges looked at by all searches
+	 */
+	long getEdgesRelaxed();
+
+	/**
+	 * @return - number of vertices added to a heap or deque by all searches
+	 */
+	long getQueuePushes();
+
+	/**
+	 * @return - number of entries taken off a heap or deque for a vertex that was already settled
+	 */
+	long getStalePops();
+
+	/**
+	 * @return - number of dijkstra calls answered from the search cache
+	 */
+	long getSearchCacheHits();
+
+	/**
+	 * @return - number of dijkstra calls that had to search
+	 */
+	long getSearchCacheMisses();
+
+	/**
+	 * @return - number of database lines read by readIn
+	 */
+	long getLinesRead();
+
+	/**
+	 * @return - lines per second over every text or URL load
+	 */
+	double getLinesPerSecond();
+
+	/**
+	 * @return - one line per timed operation, with its count and latencies in milliseconds
+	 */
+	String[] getLatencies();
+
+	/**
+	 * @return - everything above, as printed by the stats command
+	 */
+	String report();
+
+	/**
+	 * Sets every counter back to 0.
+	 */
+	void reset();
+}
@@ -0,0 +1,217 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A distance oracle for any pair of vertices of a frozen graph, built from a few landmark vertices.
+ *
+ * For every landmark L the index keeps the distance from L to every id, and from every id to L, found with one search
+ * forwards and one backwards. By the triangle inequality, for any landmark L and any pair s, t
+ *     d(L, t) - d(L, s) <= d(s, t),     d(s, L) - d(t, L) <= d(s, t),     d(s, t) <= d(s, L) + d(L, t)
+ * so bounds on the distance of any pair take 2k array reads and no search at all.
+ *
+ * The lower bound never overestimates and never drops by more than the cost of an edge, so it is a consistent A*
+ * heuristic. An exact search guided by it (ALT: A*, landmarks and the triangle inequality) heads straight for the
+ * target and settles only the vertices that can lie on a short path, instead of everything nearer the source than
+ * the target.
+ *
+ * Landmarks are the actors in the most movies, since most shortest paths of a credit graph pass close to them.
+ * The k distances of each id are stored next to each other, so the bounds of a vertex are read from one or two cache
+ * lines.
+ */
+public class LandmarkIndex {
+	/** number of landmarks used when none is given */
+	public static final int DEFAULT_LANDMARKS = 8;
+
+	final CSRGraph graph;
+	final int k;
+	final int[] landmarks;
+	final int[] from;		//from[v * k + i] is the distance from landmark i to v
+	final int[] to;			//to[v * k + i] is the distance from v to landmark i
+
+	private LandmarkIndex(CSRGraph graph, int[] landmarks, int[] from, int[] to) {
+		this.graph = graph;
+		this.k = landmarks.length;
+		this.landmarks = landmarks;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * Picks the k actors with the most edges as landmarks, and searches from and to each of them.
+	 * If the graph has no actors, any vertex can be a landmark.
+	 * @param g - frozen graph
+	 * @param actors - set for the ids of actors
+	 * @param k - number of landmarks
+	 * @return - the index
+	 * @throws IllegalStateException - if the distances would not fit in memory
+	 */
+	public static LandmarkIndex build(CSRGraph g, BitSet actors, int k) {
+		int[] landmarks = pick(g, actors.isEmpty() ? null : actors, k);
+		k = landmarks.length;
+		Runtime runtime = Runtime.getRuntime();
+		long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		if ((long) k * g.size() > Integer.MAX_VALUE - 8 || 8L * k * g.size() > free) {
+			throw new IllegalStateException("Not enough memory for " + k + " landmarks");
+		}
+		int[] from = new int[k * g.size()];
+		int[] to = new int[k * g.size()];
+		g.reverse();
+		CSRGraph back = new CSRGraph(g.inOffsets, g.inSources, g.inCosts);
+		int[] dist = new int[g.size()];
+		int[] parent = new int[g.size()];
+		for (int i = 0; i < k; i++) {
+			g.shortestPaths(landmarks[i], dist, parent);
+			for (int v = 0; v < g.size(); v++) {
+				from[v * k + i] = dist[v];
+			}
+			back.shortestPaths(landmarks[i], dist, parent);
+			for (int v = 0; v < g.size(); v++) {
+				to[v * k + i] = dist[v];
+			}
+		}
+		return new LandmarkIndex(g, landmarks, from, to);
+	}
+
+	/**
+	 * returns the ids of up to k vertices with the most outbound edges, taken from candidates, or from every id if
+	 * candidates is null
+	 */
+	private static int[] pick(CSRGraph g, BitSet candidates, int k) {
+		int[] best = new int[k];
+		int n = 0;
+		for (int v = 0; v < g.size(); v++) {
+			if ((candidates != null && !candidates.get(v)) || g.degree(v) == 0) {
+				continue;
+			}
+			if (n < k || g.degree(v) > g.degree(best[n - 1])) {
+				int i = n < k ? n++ : n - 1;
+				while (i > 0 && g.degree(best[i - 1]) < g.degree(v)) {		//keep best sorted by degree, highest first
+					best[i] = best[i - 1];
+					i--;
+				}
+				best[i] = v;
+			}
+		}
+		return Arrays.copyOf(best, n);
+	}
+
+	/**
+	 * @return - ids of the landmarks
+	 */
+	public int[] landmarks() {
+		return this.landmarks.clone();
+	}
+
+	/**
+	 * Returns a lower bound on the distance from s to t, without searching.
+	 * @param s - id of the start
+	 * @param t - id of the end
+	 * @return - a distance no greater than d(s, t), or CSRGraph.UNREACHED if the landmarks prove t cannot be reached
+	 */
+	public int lowerBound(int s, int t) {
+		int best = 0;
+		int ks = s * this.k;
+		int kt = t * this.k;
+		for (int i = 0; i < this.k; i++) {
+			int ls = this.from[ks + i];
+			if (ls != CSRGraph.UNREACHED) {
+				int lt = this.from[kt + i];
+				if (lt == CSRGraph.UNREACHED) {		//L reaches s but not t, so s cannot reach t either
+					return CSRGraph.UNREACHED;
+				}
+				best = Math.max(best, lt - ls);
+			}
+			int tl = this.to[kt + i];
+			if (tl != CSRGraph.UNREACHED) {
+				int sl = this.to[ks + i];
+				if (sl == CSRGraph.UNREACHED) {		//t reaches L but s does not, so s cannot reach t either
+					return CSRGraph.UNREACHED;
+				}
+				best = Math.max(best, sl - tl);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns an upper bound on the distance from s to t, without searching: the shortest way through a landmark.
+	 * @param s - id of the start
+	 * @param t - id of the end
+	 * @return - a distance no less than d(s, t), or CSRGraph.UNREACHED if no landmark lies on a path from s to t
+	 */
+	public int upperBound(int s, int t) {
+		if (s == t) {
+			return 0;
+		}
+		int best = CSRGraph.UNREACHED;
+		for (int i = 0; i < this.k; i++) {
+			int sl = this.to[s * this.k + i];
+			int lt = this.from[t * this.k + i];
+			if (sl != CSRGraph.UNREACHED && lt != CSRGraph.UNREACHED) {
+				best = Math.min(best, sl + lt);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Finds a shortest path from source to target with an A* search, using lowerBound as the heuristic.
+	 * Vertices the landmarks prove cannot reach target are never queued.
+	 * @param source - id of the start of the path
+	 * @param target - id of the end of the path
+	 * @return - ids on a shortest path from source to target, in order, or null if target cannot be reached
+	 */
+	public int[] path(int source, int target) {
+		if (this.graph.negative) {
+			throw new IndexOutOfBoundsException("Negative edges are not approved");
+		}
+		if (source == target) {
+			return new int[] { source };
+		}
+		int h = lowerBound(source, target);
+		if (h == CSRGraph.UNREACHED) {
+			return null;
+		}
+		CSRGraph g = this.graph;
+		SearchContext s = g.context();
+		CSRGraph.LongHeap open = s.heap;
+		s.label(source, 0, -1);
+		open.add(h, source);
+		int[] path = null;
+		int settled = 0;
+		long relaxed = 0;
+		long pushes = 1;
+		long stale = 0;
+		while (!open.isEmpty()) {
+			int u = (int) open.poll();
+			if (s.settled(u)) {
+				stale++;
+				continue;
+			}
+			if (u == target) {		//the heuristic is consistent, so the first time target leaves the heap it is final
+				path = s.path(target);
+				break;
+			}
+			s.settle(u);
+			settled++;
+			relaxed += g.offsets[u + 1] - g.offsets[u];
+			for (int i = g.offsets[u]; i < g.offsets[u + 1]; i++) {
+				int v = g.targets[i];
+				int d = s.dist[u] + g.costs[i];
+				if (d < s.dist(v)) {
+					h = lowerBound(v, target);
+					if (h != CSRGraph.UNREACHED) {
+						s.label(v, d, u);
+						open.add(d + h, v);
+						pushes++;
+					}
+				}
+			}
+		}
+		g.release(s);
+		if (g.stats != null) {
+			g.stats.searched(settled, relaxed, pushes, stale);
+		}
+		return path;
+	}
+}
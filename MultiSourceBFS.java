@@ -0,0 +1,231 @@
+import java.util.Arrays;
+
+/**
+ * A bit-parallel multi-source BFS (MS-BFS) over a CSRGraph whose edges all cost 0 or 1.
+ * Up to 64 * words sources are searched at once. Every vertex keeps one bit per source (its lane) in each of
+ * seen, visit and next, so a vertex reached by many sources on the same level is only expanded once,
+ * with all of their lanes in a single long.
+ *
+ * Each level runs in two steps. First the lanes that reached a vertex are pushed along 0 cost edges until
+ * nothing new is seen, since those vertices are on the same level. Then every vertex of the level passes its lanes
+ * along 1 cost edges, which gives the next level.
+ *
+ * Nothing is cleared between runs: a vertex's seen lanes only count for the run whose number it holds in runOf, and
+ * are zeroed the first time that run touches it, so a run costs only the vertices it reaches.
+ *
+ * A MultiSourceBFS holds its own arrays, so one instance should be used by one thread at a time. Each run counts as
+ * one search in the graph's stats, however many sources it has.
+ */
+public class MultiSourceBFS {
+	/**
+	 * Receives the lanes that reach a vertex for the first time. Lane i of word w stands for the source at
+	 * position 64 * w + i of the batch passed to run.
+	 */
+	public interface Visitor {
+		/**
+		 * @param v - id of the vertex reached
+		 * @param word - which word of lanes the bits belong to
+		 * @param lanes - bits of the sources that reached v at distance dist
+		 * @param dist - distance from those sources to v
+		 */
+		void reached(int v, int word, long lanes, int dist);
+	}
+
+	final CSRGraph g;
+	final int words;
+	final long[] seen;
+	final long[] visit;
+	final long[] next;
+	final int[] level;
+	final int[] nextLevel;
+	final int[] queued;
+	final boolean[] inWork;
+	final CSRGraph.IntDeque work;
+	final long[] carry;
+	final int[] runOf;		//number of the run that last touched the seen lanes of each vertex
+	int run;
+	int stamp;
+
+	/**
+	 * creates the arrays for a multi-source search over g.
+	 * @param g - frozen graph to search, with every edge costing 0 or 1
+	 * @param words - number of 64 source words searched at once
+	 */
+	public MultiSourceBFS(CSRGraph g, int words) {
+		if (!g.isZeroOne()) {
+			throw new IllegalArgumentException("Multi-source BFS needs every edge to cost 0 or 1");
+		}
+		this.g = g;
+		this.words = words;
+		this.seen = new long[g.size() * words];
+		this.visit = new long[g.size() * words];
+		this.next = new long[g.size() * words];
+		this.level = new int[g.size()];
+		this.nextLevel = new int[g.size()];
+		this.queued = new int[g.size()];
+		this.inWork = new boolean[g.size()];
+		this.work = new CSRGraph.IntDeque(64);
+		this.carry = new long[words];
+		this.runOf = new int[g.size()];
+		this.run = 0;
+		this.stamp = 0;
+	}
+
+	/**
+	 * @return - most sources that can be searched in one run
+	 */
+	public int lanes() {
+		return 64 * this.words;
+	}
+
+	/**
+	 * Searches from sources[from] ... sources[from + count - 1] at once, telling visitor about every vertex
+	 * each of them reaches, level by level.
+	 * @param sources - ids of the sources
+	 * @param from - position of the first source of this batch
+	 * @param count - number of sources in this batch, at most lanes()
+	 * @param visitor - told about every vertex reached, and by which lanes
+	 */
+	public void run(int[] sources, int from, int count, Visitor visitor) {
+		int W = this.words;
+		if (run == Integer.MAX_VALUE) {		//numbers only run out after two billion runs
+			Arrays.fill(runOf, 0);
+			run = 0;
+		}
+		run++;
+		int size = 0;
+		stamp++;
+		for (int k = 0; k < count; k++) {
+			int s = sources[from + k];
+			touch(s);
+			long bit = 1L << (k & 63);
+			int i = s * W + (k >>> 6);
+			seen[i] |= bit;
+			visit[i] |= bit;
+			if (queued[s] != stamp) {
+				queued[s] = stamp;
+				level[size++] = s;
+			}
+		}
+		int dist = 0;
+		long settled = 0;
+		long relaxed = 0;
+		long pushes = 0;
+		while (size > 0) {
+			//push the new lanes along 0 edges; next holds the lanes each vertex has not passed on yet
+			pushes += size;
+			for (int j = 0; j < size; j++) {
+				int u = level[j];
+				for (int w = 0; w < W; w++) {
+					next[u * W + w] = visit[u * W + w];
+				}
+				inWork[u] = true;
+				work.addLast(u);
+			}
+			while (!work.isEmpty()) {
+				int u = work.pollFirst();
+				inWork[u] = false;
+				for (int w = 0; w < W; w++) {
+					carry[w] = next[u * W + w];
+					next[u * W + w] = 0;
+				}
+				relaxed += g.offsets[u + 1] - g.offsets[u];
+				for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+					if (g.costs[e] != 0) {
+						continue;
+					}
+					int v = g.targets[e];
+					touch(v);
+					boolean grew = false;
+					for (int w = 0; w < W; w++) {
+						long nb = carry[w] & ~seen[v * W + w];
+						if (nb != 0) {
+							seen[v * W + w] |= nb;
+							visit[v * W + w] |= nb;
+							next[v * W + w] |= nb;
+							grew = true;
+						}
+					}
+					if (grew) {
+						if (queued[v] != stamp) {
+							queued[v] = stamp;
+							level[size++] = v;
+						}
+						if (!inWork[v]) {
+							inWork[v] = true;
+							work.addLast(v);
+							pushes++;
+						}
+					}
+				}
+			}
+			for (int j = 0; j < size; j++) {
+				int u = level[j];
+				for (int w = 0; w < W; w++) {
+					if (visit[u * W + w] != 0) {
+						visitor.reached(u, w, visit[u * W + w], dist);
+					}
+				}
+			}
+			//pass every lane of this level along 1 edges
+			stamp++;
+			int nextSize = 0;
+			settled += size;
+			for (int j = 0; j < size; j++) {
+				int u = level[j];
+				relaxed += g.offsets[u + 1] - g.offsets[u];
+				for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+					if (g.costs[e] == 0) {
+						continue;
+					}
+					int v = g.targets[e];
+					touch(v);
+					boolean grew = false;
+					for (int w = 0; w < W; w++) {
+						long nb = visit[u * W + w] & ~seen[v * W + w];
+						if (nb != 0) {
+							next[v * W + w] |= nb;
+							grew = true;
+						}
+					}
+					if (grew && queued[v] != stamp) {
+						queued[v] = stamp;
+						nextLevel[nextSize++] = v;
+					}
+				}
+			}
+			for (int j = 0; j < size; j++) {
+				int u = level[j];
+				for (int w = 0; w < W; w++) {
+					visit[u * W + w] = 0;
+				}
+			}
+			for (int j = 0; j < nextSize; j++) {
+				int v = nextLevel[j];
+				level[j] = v;
+				for (int w = 0; w < W; w++) {
+					seen[v * W + w] |= next[v * W + w];
+					visit[v * W + w] = next[v * W + w];
+					next[v * W + w] = 0;
+				}
+			}
+			size = nextSize;
+			dist++;
+		}
+		if (g.stats != null) {
+			g.stats.searched(settled, relaxed, pushes, 0);
+		}
+	}
+
+	/**
+	 * zeroes the seen lanes of v if this run has not touched it yet
+	 */
+	private void touch(int v) {
+		if (runOf[v] != run) {
+			runOf[v] = run;
+			for (int w = 0; w < this.words; w++) {
+				seen[v * this.words + w] = 0;
+			}
+		}
+	}
+}
@@ -1,14 +1,25 @@
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.NoSuchElementException;
-import java.util.PriorityQueue;
-import java.util.Scanner;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Creates a graph of vertices, which hold String data, and Edges, which connect vertices.
@@ -18,6 +29,12 @@ import java.util.Scanner;
  * 
  * A Path object can be made to represent the shortest path between a central vertex and a destination vertex.
  * 
+ * Every name is stored once, as UTF-8 bytes in a NamePool, which gives each vertex a dense int id. Vertex objects
+ * are only made for the ids that are asked for, and names are only decoded when they are shown.
+ * 
+ * Once the graph is loaded it can be frozen into a CSRGraph, an int-indexed copy of the edges which every query
+ * runs against. Freezing drops the per-vertex edge maps; any change to the edges thaws the graph again first.
+ * 
  * "Data Structures and Problem Solving using Java" by Mark Allen Weiss was referenced for the Dijkstra's algorithm implementation,
  * as well as for some small design concepts (such as the path object).
  * Graphs are cool.
@@ -25,8 +42,9 @@ import java.util.Scanner;
  * @author Mark Allen Weiss
  */
 public class MyGraph {
-	LinkedList<String> actors;
-	HashMap<String, Vertex> vertices;
+	BitSet actors;
+	NamePool names;
+	BitSet live;
 	LinkedList<Edge> edges;
 	int numVertex;
 	int numEdges;
@@ -35,6 +53,25 @@ public class MyGraph {
 	int unreachable;
 	LinkedList<Vertex> connected;
 	LinkedList<Entry> avgs;
+	int sampled;			//pivots, width of the 95% bound, actors the bound cannot rule out of the top n,
+	float bound;			//and exact searches of the last sampled topcenter
+	int possible;
+	int refined;
+	Vertex[] byId;
+	CSRGraph csr;
+	CoStarGraph costars;
+	LandmarkIndex landmarks;
+	volatile PrunedLabelIndex labels;
+	Thread labeler;			//thread building labels for the graph in labeling, if any
+	CSRGraph labeling;
+	File source;			//text file the graph was read from, while the graph is unchanged
+	Components components;	//null until asked for, or after an edge or vertex is removed
+	SearchCache searches;
+	DynamicPaths dynamic;
+	int workers;
+	GraphStats stats;		//kept across clear and readIn, so it counts every graph the program loads
+
+	static final VarHandle BY_ID = MethodHandles.arrayElementVarHandle(Vertex[].class);
 
 	/**
 	 * Creates a directed Edge on the graph. Edge contains the vertex it originates from, the vertex
@@ -112,24 +149,37 @@ public class MyGraph {
 	 *
 	 */
 	public class Vertex{
-		String data;
-		HashMap<String ,Edge> out;
-		HashMap<String ,Edge> in;
+		final String data;		//final, so a vertex made by one query thread is seen whole by every other
+		final int id;
+		HashMap<Integer ,Edge> out;
+		HashMap<Integer ,Edge> in;
 		LinkedList<Edge> outEdges;
-		public boolean check;
-		public int path;
-		public Vertex prev;
 
 		/**
 		 * creates a vertex object. Initializes data to data, then creates 2 empty hashmaps for the
-		 * inbound and outbound edges.
+		 * inbound and outbound edges if the graph is thawed.
 		 * @param data
+		 * @param id - id of data in the NamePool
+		 * @param thawed - false if the vertex's edges live in the CSRGraph
 		 */
-		public Vertex(String data) {
+		public Vertex(String data, int id, boolean thawed) {
+			this(data, id);
+			if (thawed) {
+				this.out = new HashMap<Integer ,Edge>();
+				this.in = new HashMap<Integer ,Edge>();
+				this.outEdges = new LinkedList<Edge>();
+			}
+		}
+
+		/**
+		 * creates a vertex of a frozen graph with the given id, when it is first asked for.
+		 * Its edges live in the CSRGraph, so no hashmaps are made until the graph is thawed.
+		 * @param data
+		 * @param id - id of the vertex in the CSRGraph
+		 */
+		Vertex(String data, int id) {
 			this.data = data;
-			this.out = new HashMap<String ,Edge>();
-			this.in = new HashMap<String ,Edge>();
-			this.outEdges = new LinkedList<Edge>();
+			this.id = id;
 		}
 
 		/**
@@ -141,10 +191,10 @@ public class MyGraph {
 		}
 
 		/**
-		 * hashcode is determined by the data's hashcode.
+		 * hashcode is the vertex id, so the name never has to be hashed.
 		 */
 		public int hashCode() {
-			return this.data.hashCode();
+			return this.id;
 		}
 
 		/**
@@ -163,15 +213,16 @@ public class MyGraph {
 		 * @param cost - cost of the new edge being created.
 		 */
 		public Edge add(boolean in, Vertex v, int cost) {
+			thaw();
 			if (in) {
 				Edge edge = new Edge(v, this, cost);
-				this.in.put(v.data, edge);
-				v.out.put(this.data, edge);
+				this.in.put(v.id, edge);
+				v.out.put(this.id, edge);
 				return edge;
 			} else {
 				Edge edge = new Edge(this, v, cost);
-				this.out.put(v.data, edge);
-				v.in.put(this.data, edge);
+				this.out.put(v.id, edge);
+				v.in.put(this.id, edge);
 				this.outEdges.add(edge);
 				return edge;
 			}
@@ -184,7 +235,8 @@ public class MyGraph {
 		 * @return - true if at least one edge connects vertex v and the current vertex. False if no such edge exists.
 		 */
 		public boolean isAdjacent(Vertex v) {
-			if (this.out.containsKey(v.data) || this.in.containsKey(v.data)) {
+			thaw();
+			if (this.out.containsKey(v.id) || this.in.containsKey(v.id)) {
 				return true;
 			} else {
 				return false;
@@ -198,14 +250,15 @@ public class MyGraph {
 		 * @return true if edge is removed, false if it was not present in the graph.
 		 */
 		public boolean removeEdge(Edge e) {
-			if (in.containsKey(e.from().data) || out.containsKey(e.to().data)){
-				if (in.containsKey(e.from().data)) {
-					e.from().out.remove(e.from().data);
-				} if (out.containsKey(e.to().data)) {
-					e.to().in.remove(e.to().data);
+			thaw();
+			if (in.containsKey(e.from().id) || out.containsKey(e.to().id)){
+				if (in.containsKey(e.from().id)) {
+					e.from().out.remove(e.from().id);
+				} if (out.containsKey(e.to().id)) {
+					e.to().in.remove(e.to().id);
 				}
-				in.remove(e.from().data);
-				out.remove(e.to().data);
+				in.remove(e.from().id);
+				out.remove(e.to().id);
 				outEdges.remove(e);
 				return true;
 			} else {
@@ -218,6 +271,7 @@ public class MyGraph {
 		 * Also removes all edges connecting to the current vertex from all adjacent vertexes
 		 */
 		public void clear() {
+			thaw();
 			Iterator<Edge> inbound = in.values().iterator();
 			Iterator<Edge> outbound = out.values().iterator();
 			while (inbound.hasNext()) {
@@ -237,24 +291,16 @@ public class MyGraph {
 		 * @return - linked list of outbound edges.
 		 */
 		public LinkedList<Edge> getEdges(){
+			thaw();
 			return this.outEdges;
 		}
-
-		/**
-		 * resets vertex. Unmarks the vertex, sets the path cost to be INF, and sets prev to null
-		 */
-		public void reset() {
-			this.check = false;
-			this.path = INF;
-			this.prev = null;
-		}
-
 	}
 
 
 	public MyGraph() {
-		actors = new LinkedList<String>();
-		vertices = new HashMap<String,Vertex>();
+		actors = new BitSet();
+		names = new NamePool(16);
+		live = new BitSet();
 		edges = new LinkedList<Edge>();
 		numVertex = 0;
 		numEdges = 0;
@@ -263,6 +309,13 @@ public class MyGraph {
 		unreachable = 0;
 		connected = new LinkedList<Vertex>();
 		avgs = new LinkedList<Entry>();
+		byId = new Vertex[16];
+		csr = null;
+		costars = null;
+		searches = new SearchCache(Runtime.getRuntime().maxMemory() / 8);
+		dynamic = null;
+		workers = Runtime.getRuntime().availableProcessors();
+		stats = new GraphStats();
 	}
 
 	/**
@@ -299,10 +352,17 @@ public class MyGraph {
 	public boolean removeEdge(String d1, String d2) {
 		Edge e = this.getEdge(d1,d2);
 		if (e != null) {
+			int[] affected = this.dynamic == null ? null : this.dynamic.affected(e.from().id, e.to().id);
 			e.from().removeEdge(e);
 			e.to().removeEdge(e);
 			this.edges.remove(e);
 			this.numEdges--;
+			if (this.components != null) {
+				this.components.split = true;		//the edge may have split a component
+			}
+			if (this.dynamic != null) {
+				this.dynamic.increased(affected);
+			}
 			return true;
 		} else {
 			return false;
@@ -319,11 +379,25 @@ public class MyGraph {
 		Vertex v = getVertex(d);
 		LinkedList<Edge> e = v.getEdges();
 		int num = e.size();
-		if (this.vertices.containsKey(d)) {
+		if (this.idOf(d) >= 0) {
+			int[] affected = null;
+			if (this.dynamic != null && this.dynamic.source == v.id) {
+				this.dynamic = null;
+			} else if (this.dynamic != null) {
+				affected = this.dynamic.subtree(v.id);
+			}
 			v.clear();
-			this.vertices.remove(d);
+			this.live.clear(v.id);
+			this.actors.clear(v.id);		//the name stays in the pool, and gets the same id back if it is inserted again
+			this.byId[v.id] = null;
 			this.numVertex--;
 			this.numEdges = this.numEdges - num;
+			if (this.components != null) {
+				this.components.split = true;
+			}
+			if (this.dynamic != null) {
+				this.dynamic.increased(affected);
+			}
 			return true;
 		} else {
 			return false;
@@ -340,16 +414,32 @@ public class MyGraph {
 		Vertex v1 = getVertex(data1);
 		Vertex v2 = getVertex(data2);
 		if (v1 != null && v2 != null) {
+			if (cost < 0) {
+				this.dynamic = null;		//shortest paths cannot be kept with negative edges
+			}
 			if (v1.isAdjacent(v2)){
 				Edge e = this.getEdge(v1, v2);
 				if (e != null){
+					int old = e.cost();
+					int[] affected = this.dynamic != null && cost > old ? this.dynamic.affected(v1.id, v2.id) : null;
 					e.newCost(cost);
+					if (this.dynamic != null && cost < old) {
+						this.dynamic.decreased(v1.id, v2.id, cost);
+					} else if (this.dynamic != null) {
+						this.dynamic.increased(affected);
+					}
 					return null;
 				}
 			}
 			Edge edge = v1.add(false, v2, cost);
 			this.edges.add(edge);
 			this.numEdges++;
+			if (this.components != null) {
+				this.components.added(v1.id, v2.id, v2.out.containsKey(v1.id));
+			}
+			if (this.dynamic != null) {
+				this.dynamic.decreased(v1.id, v2.id, cost);
+			}
 			return edge;
 		}
 		return null;
@@ -360,12 +450,23 @@ public class MyGraph {
 	 * @param v - vertex to be added to the graph.
 	 */
 	public Vertex insertVertex(String data, boolean actor) {
-		if (!this.vertices.containsKey(data)) {
-			Vertex v = new Vertex(data);
-			this.vertices.put(data, v);
+		if (this.idOf(data) < 0) {
+			thaw();
+			Vertex v = new Vertex(data, this.names.add(data), true);
+			if (v.id >= this.byId.length) {
+				this.byId = Arrays.copyOf(this.byId, Math.max(this.byId.length * 2, v.id + 1));
+			}
+			this.byId[v.id] = v;
+			this.live.set(v.id);
 			this.numVertex++;
+			if (this.dynamic != null) {
+				this.dynamic.grow(this.names.size());
+			}
 			if (actor) {
-				this.actors.add(data);
+				this.actors.set(v.id);
+			}
+			if (this.components != null) {
+				this.components.add(v.id, actor);
 			}
 			return v;
 		}
@@ -385,7 +486,8 @@ public class MyGraph {
 	public LinkedList<Vertex> adjacentVertices(String d){
 		Vertex v = getVertex(d);
 		LinkedList<Vertex> adjacent = new LinkedList<Vertex>();
-		if (this.vertices.containsKey(d)) {
+		if (this.idOf(d) >= 0) {
+			thaw();
 			Iterator<Edge> inbound = v.in.values().iterator();
 			Iterator<Edge> outbound = v.out.values().iterator();
 			while(inbound.hasNext()) {
@@ -406,7 +508,8 @@ public class MyGraph {
 	public LinkedList<Edge> incidentEdges(Vertex v){
 		String data = v.data();
 		LinkedList<Edge> incident = new LinkedList<Edge>();
-		if (this.vertices.containsKey(data)) {
+		if (this.idOf(data) >= 0) {
+			thaw();
 			Iterator<Edge> inbound = v.in.values().iterator();
 			Iterator<Edge> outbound = v.out.values().iterator();
 			while(inbound.hasNext()) {
@@ -425,10 +528,39 @@ public class MyGraph {
 	 * @return - vertex object in graph which contains data. Returns null if vertex is not in graph.
 	 */
 	public Vertex getVertex(String data) {
-		Vertex v = this.vertices.get(data);;
-		if (v == null){
-			data = data + " (I)";
-			v = this.vertices.get(data);
+		int id = this.idOf(data);
+		if (id < 0){
+			id = this.idOf(data + " (I)");
+		}
+		return id < 0 ? null : this.vertex(id);
+	}
+
+	/**
+	 * Returns the id of the vertex whose data is exactly data.
+	 * @param data - data of the vertex
+	 * @return - id of the vertex, or -1 if it is not in the graph
+	 */
+	int idOf(String data) {
+		int id = this.names.find(data);
+		return id >= 0 && this.live.get(id) ? id : -1;
+	}
+
+	/**
+	 * Returns the vertex with the given id, making its Vertex object the first time it is asked for. Query threads
+	 * of a frozen graph can ask at once: the first to store its vertex wins, and the others return that one, so an
+	 * id only ever has one Vertex.
+	 * @param id - id of the vertex
+	 * @return - the vertex, or null if id has been removed
+	 */
+	Vertex vertex(int id) {
+		Vertex[] byId = this.byId;
+		Vertex v = (Vertex) BY_ID.getAcquire(byId, id);
+		if (v == null && this.live.get(id)) {
+			Vertex made = new Vertex(this.names.name(id), id);
+			v = (Vertex) BY_ID.compareAndExchangeRelease(byId, id, (Vertex) null, made);
+			if (v == null) {
+				v = made;
+			}
 		}
 		return v;
 	}
@@ -440,8 +572,8 @@ public class MyGraph {
 	 * @return - edge from v1 to v2
 	 */
 	public Edge getEdge(Vertex v1, Vertex v2) {
-		String to = v2.data();
-		return (v1.out.get(to));
+		thaw();
+		return (v1.out.get(v2.id));
 	}
 
 	/**
@@ -456,6 +588,235 @@ public class MyGraph {
 		return this.getEdge(v1,v2);
 	}
 
+	/**
+	 * Returns the number of outbound edges of v, without thawing a frozen graph.
+	 * @param v - vertex to find the degree of
+	 * @return - number of outbound edges of v
+	 */
+	public int degree(Vertex v) {
+		if (this.csr != null) {
+			return this.csr.degree(v.id);
+		}
+		return v.outEdges.size();
+	}
+
+	/**
+	 * Freezes the graph into a CSRGraph, if it is not frozen already. Every edge is copied into the packed
+	 * arrays, in the same order as each vertex's outEdges, and the per-vertex edge maps and the edge list are dropped.
+	 * @return - the CSR form of the graph
+	 */
+	public CSRGraph freeze() {
+		if (this.csr == null) {
+			int size = this.names.size();
+			int[] offsets = new int[size + 1];
+			for (int i = 0; i < size; i++) {
+				Vertex v = this.byId[i];
+				offsets[i + 1] = offsets[i] + (v == null ? 0 : v.outEdges.size());
+			}
+			int[] targets = new int[offsets[size]];
+			int[] costs = new int[offsets[size]];
+			for (int i = 0; i < size; i++) {
+				Vertex v = this.byId[i];
+				if (v != null) {
+					int j = offsets[i];
+					Iterator<Edge> itr = v.outEdges.iterator();
+					while (itr.hasNext()) {
+						Edge e = itr.next();
+						targets[j] = e.to().id;
+						costs[j] = e.cost();
+						j++;
+					}
+					v.out = null;
+					v.in = null;
+					v.outEdges = null;
+				}
+			}
+			this.edges = null;
+			this.csr = new CSRGraph(offsets, targets, costs);
+			this.csr.stats = this.stats;
+		}
+		return this.csr;
+	}
+
+	/**
+	 * Builds the actor-only co-star projection of the graph, if it is not built already. From then on dijkstra runs
+	 * from an actor as a BFS over the projection. The graph is frozen first, and the projection is dropped if the
+	 * graph is thawed.
+	 * @return - false if the graph has edges that are not credits, so it cannot be projected
+	 * @throws IllegalStateException - if the projection is too big to build
+	 */
+	public boolean project() {
+		if (this.costars == null) {
+			this.costars = CoStarGraph.build(this.freeze(), this.actors);
+		}
+		return this.costars != null;
+	}
+
+	/**
+	 * Builds a LandmarkIndex over the graph, if it is not built already, so that the distance between any pair of
+	 * vertices can be bounded without a search. The graph is frozen first, and the index is dropped if the graph is
+	 * thawed, so it is built once for every graph read in.
+	 * @return - the landmark index of the graph
+	 * @throws IllegalStateException - if the index is too big to build
+	 */
+	public LandmarkIndex landmarks() {
+		if (this.landmarks == null) {
+			this.landmarks = LandmarkIndex.build(this.freeze(), this.actors, LandmarkIndex.DEFAULT_LANDMARKS);
+		}
+		return this.landmarks;
+	}
+
+	/**
+	 * Returns the connected components of the graph. readIn finds them while loading and insertEdge keeps them up to
+	 * date; after a removal, or for a graph built with insertEdge alone, they are found again, from the vertices'
+	 * edges if the graph is thawed, so asking for them never freezes the graph.
+	 * @return - the components of the graph
+	 */
+	public Components components() {
+		if (this.components == null || this.components.split) {
+			CSRGraph g = this.csr;
+			if (g != null) {
+				g.reverse();
+				this.components = Components.of(g, this.live, this.actors, Components.unmatched(g));
+			} else {
+				this.components = Components.of(this.names.size(), this.byId, this.live, this.actors);
+			}
+		}
+		return this.components;
+	}
+
+	/**
+	 * returns true if there is no path from a to b, because they are in different components. Takes no search.
+	 * Components split by a removal are not built again for this: ids they put apart are still apart.
+	 */
+	private boolean apart(Vertex a, Vertex b) {
+		Components c = this.components != null ? this.components : this.components();
+		return !c.together(a.id, b.id);
+	}
+
+	/**
+	 * Returns the number of actors center reaches, without a search, if the graph's edges all go both ways.
+	 * @param center - vertex to count from
+	 * @return - number of actors reachable from center, counting center, or -1 if it takes a search to know, as it
+	 * does after a removal until the components are asked for again
+	 */
+	public int reachable(Vertex center) {
+		Components c = this.components != null ? this.components : this.components();
+		return c.isSymmetric() && !c.split ? c.actors(center.id) : -1;
+	}
+
+	/**
+	 * Makes a PrunedLabelIndex of the graph ready for baconNumber. If the graph was read from a text file and labels
+	 * saved next to it are current they are read back in; otherwise they are built, then saved next to the file.
+	 * Building takes a while on a large graph, so it can run on a background thread. baconNumber keeps searching until
+	 * the labels are ready, and labels finished after the graph has changed are thrown away.
+	 * @param background - true to build the labels on a background thread and return at once
+	 * @return - the thread building the labels, or null if they are ready
+	 */
+	public synchronized Thread buildLabels(boolean background) {
+		final CSRGraph g = this.freeze();
+		if (this.labels != null && this.labels.graph == g) {
+			return null;
+		}
+		if (this.labeling == g && this.labeler.isAlive()) {
+			return this.labeler;
+		}
+		final File text = this.source;
+		final File file = text == null ? null : PrunedLabelIndex.fileFor(text.getPath());
+		if (file != null && PrunedLabelIndex.isCurrent(file, text)) {
+			try {
+				this.labels = PrunedLabelIndex.read(file, g);
+				return null;
+			} catch (IOException e) {
+				file.delete();		//build them again instead
+			}
+		}
+		Runnable task = new Runnable() {
+			public void run() {
+				PrunedLabelIndex index = PrunedLabelIndex.build(g);
+				synchronized (MyGraph.this) {
+					if (MyGraph.this.csr == g) {
+						MyGraph.this.labels = index;
+					}
+				}
+				if (file != null) {
+					try {
+						index.write(text, file);
+					} catch (IOException e) {		//the old file, if any, is left as it was, and is not current
+						System.out.println("Labels could not be saved to " + file + ": " + e.getMessage());
+					}
+				}
+			}
+		};
+		if (!background) {
+			task.run();
+			return null;
+		}
+		this.labeling = g;
+		this.labeler = new Thread(task, "labels");
+		this.labeler.setDaemon(true);
+		this.labeler.start();
+		return this.labeler;
+	}
+
+	/**
+	 * Replaces the whole graph with an already frozen one, as built by a loader or read from a snapshot.
+	 * No Vertex objects are made until they are asked for.
+	 * @param names - name of the vertex with each id
+	 * @param live - set for the ids that are vertices of the graph; others are names of removed vertices
+	 * @param actors - set for the ids of actors
+	 * @param g - the edges of the new graph
+	 * @param inf - sum of the costs of all edges
+	 */
+	void install(NamePool names, BitSet live, BitSet actors, CSRGraph g, int inf) {
+		this.clear();
+		this.names = names;
+		this.live = live;
+		this.byId = new Vertex[Math.max(16, g.size())];
+		this.edges = null;
+		this.numVertex = live.cardinality();
+		this.actors = actors;
+		this.numEdges = g.edges();
+		this.INF = inf;
+		this.csr = g;
+		this.csr.stats = this.stats;
+	}
+
+	/**
+	 * Thaws a frozen graph, rebuilding the per-vertex edge maps and the edge list from the CSRGraph so that
+	 * the graph can be changed again. Does nothing if the graph is not frozen.
+	 */
+	public void thaw() {
+		if (this.csr != null) {
+			CSRGraph g = this.csr;
+			int inf = this.INF;
+			this.csr = null;
+			this.costars = null;		//changing the edges would leave the projection, landmarks and cached searches out of date
+			this.landmarks = null;
+			this.labels = null;
+			this.source = null;		//labels saved for the text file no longer match the graph
+			this.searches.clear();
+			this.edges = new LinkedList<Edge>();
+			for (int i = 0; i < g.size(); i++) {
+				Vertex v = this.vertex(i);
+				if (v != null) {
+					v.out = new HashMap<Integer, Edge>();
+					v.in = new HashMap<Integer, Edge>();
+					v.outEdges = new LinkedList<Edge>();
+				}
+			}
+			for (int i = 0; i < g.size(); i++) {
+				Vertex v = this.byId[i];
+				if (v != null) {
+					for (int j = g.offsets[i]; j < g.offsets[i + 1]; j++) {
+						this.edges.add(v.add(false, this.byId[g.targets[j]], g.costs[j]));
+					}
+				}
+			}
+			this.INF = inf;		//rebuilt edges are not new, so INF stays the same
+		}
+	}
+
 	/**
 	 * converts the graph to a string of format: 
 	 * Vertex 1: (vertex data) || (v1edge1), (v1edge2), ... (v1edge x)
@@ -471,11 +832,9 @@ public class MyGraph {
 	 */
 	public String toString() {
 		String graph = "";
-		Iterator<String> itr = vertices.keySet().iterator();
 		int i = 0;
-		while (itr.hasNext()) {
-			//	for (int i = 0; i < this.vertices.size(); i++) {
-			Vertex v = this.vertices.get(itr.next());
+		for (int id = live.nextSetBit(0); id >= 0; id = live.nextSetBit(id + 1)) {
+			Vertex v = this.vertex(id);
 			graph = graph + "Vertex " + i + ": " + v + " || Edges: ";
 			LinkedList<Edge> e = incidentEdges(v);
 			for(int j = 0; j < e.size(); j++) {
@@ -495,16 +854,16 @@ public class MyGraph {
 	public String getDists(String s){
 		String table = "";
 		Vertex start = getVertex(s);
-		HashMap<Vertex,Path> dist = dijkstra(start);
+		ShortestPathTree tree = dijkstra(start);
 		table = "Distances from Vertex " + start + ":" + "\n";
-		Iterator<String> itr = vertices.keySet().iterator();
-		while (itr.hasNext()) {
-			Vertex v = vertices.get(itr.next());
-			table = table +  v.toString() + " || " + dist.get(v).cost + " (" + v;
-			Vertex cpath = v;
-			while (cpath.prev != null) {
-				table = table  + " <- "+ cpath.prev;
-				cpath = cpath.prev;
+		for (int id = live.nextSetBit(0); id >= 0; id = live.nextSetBit(id + 1)) {
+			if (!tree.reached(id)) {
+				table = table + this.names.name(id) + " || unreachable" + "\n";
+				continue;
+			}
+			table = table + this.names.name(id) + " || " + tree.dist(id) + " (" + this.names.name(id);
+			for (int prev = tree.parent(id); prev >= 0; prev = tree.parent(prev)) {
+				table = table  + " <- "+ this.names.name(prev);
 			}
 			table = table + ")" + "\n";
 		}
@@ -513,87 +872,201 @@ public class MyGraph {
 	}
 
 	/**
-	 * resets all vertices in the graph. Removes prev values and sets distances to INF, but 
-	 * maintains all vertices and edges in the graph.
+	 * Runs Dijkstra's algorithm on the graph, starting from vertex start. 
+	 * If every edge costs 0 or 1, as in every graph built by readIn, the frozen graph runs a 0-1 BFS instead,
+	 * which finds the same distances in linear time. If the graph has been projected and start is an actor,
+	 * the search is a BFS over the co-star projection, which never queues a movie.
+	 * The last few searches are kept in a SearchCache, so going back to a recent center does not search again,
+	 * and the search from a center passed to track is kept up to date as the graph changes.
+	 * @param start - central vertex which the algorithm runs from
+	 * @return - the distance from start to every vertex id, and a shortest path to each one
 	 */
-	private void resetAll() {
-		Iterator<String> itr = vertices.keySet().iterator();
-		while (itr.hasNext()){
-			Vertex v = getVertex(itr.next());
-			if (v != null) {
-				v.reset();
+	public ShortestPathTree dijkstra(Vertex start) {
+		String center = start.data();
+		if (this.idOf(center) < 0){
+			throw new NoSuchElementException("Start vertex doesn't exist in graph.");
+		}
+		if (this.dynamic != null && this.dynamic.source == start.id) {
+			this.stats.cached(true);		//kept up to date instead of searched, so it counts like a cached search
+			return this.dynamic.tree();
+		}
+		CSRGraph g = this.freeze();
+		ShortestPathTree tree = this.searches.get(start.id);
+		this.stats.cached(tree != null);
+		if (tree == null) {
+			long began = System.nanoTime();
+			int[] dist = new int[g.size()];
+			int[] parent = new int[g.size()];
+			if (this.costars != null && this.actors.get(start.id)) {
+				this.costars.shortestPaths(start.id, dist, parent);
+			} else {
+				g.shortestPaths(start.id, dist, parent);
 			}
+			tree = new ShortestPathTree(start.id, dist, parent);
+			this.searches.put(start.id, tree);
+			this.stats.time("dijkstra", System.nanoTime() - began);
 		}
+		return tree;
 	}
 
 	/**
-	 * Runs Dijkstra's algorithm on the graph, starting from vertex start. 
-	 * Returns a HashMap with each vertex in the graph and a path from start to that vertex.
-	 * @param start - central vertex which the algorithm runs from
-	 * @return - HashMap with each vertex and a path from start to the vertex
+	 * Keeps the search from center up to date from now on. After insertEdge, removeEdge or removeVertex only the
+	 * part of the search the change can affect is repaired, so dijkstra(center) never has to search the whole graph
+	 * again. Only one center is tracked at a time, and tracking stops if the center is removed, an edge with a
+	 * negative cost is inserted, or the graph is replaced. The tree returned here and by dijkstra(center) is repaired
+	 * in place rather than copied, so it always shows the graph as it is now; find, table and baconNumber from center
+	 * read it without freezing the graph.
+	 * @param center - vertex to keep the search from
+	 * @return - the search from center
 	 */
-	public HashMap<Vertex,Path> dijkstra(Vertex start) {
-		String center = start.data();
-		HashMap<Vertex, Path> distances = new HashMap<Vertex, Path>();
-		PriorityQueue<Path> queue = new PriorityQueue<Path>();
-		if (!this.vertices.containsKey(center)){
-			throw new NoSuchElementException("Start vertex doesn't exist in graph.");
+	public ShortestPathTree track(Vertex center) {
+		if (this.dynamic == null || this.dynamic.source != center.id) {
+			this.dynamic = new DynamicPaths(this, this.dijkstra(center));
 		}
-		resetAll();
-		start.path = 0;
-		start.prev = null;
-		Path x = new Path(start, 0);
-		queue.add(x);
-		distances.put(start, x);
-		int count = 0;
-		while(!queue.isEmpty() && count < vertices.size()) {
-			Path p = queue.poll();
-			Vertex u = p.dest;
-			if (u.check) {
-				continue;
+		return this.dynamic.tree();
+	}
+
+	/**
+	 * @return - the up to date search from the tracked center, or null if no center is tracked
+	 */
+	public ShortestPathTree tracked() {
+		return this.dynamic == null ? null : this.dynamic.tree();
+	}
+
+	/**
+	 * Stops keeping a search up to date.
+	 */
+	public void untrack() {
+		this.dynamic = null;
+	}
+
+	/**
+	 * Returns the path from the center to the vertex associated with name. Path is put in the format of: 
+	 * name -> movie1 -> intermediate name -> movie2 -> .... movie x -> center (bacon number)
+	 * @param tree - search from the current center
+	 * @param name - actor to find a path to
+	 * @return - String representation of the path.
+	 */
+	public String find(ShortestPathTree tree, String name){
+		Vertex v = this.getVertex(name);
+		String p = name;
+		if (v != null && tree.reached(v.id)){
+			for (int prev = tree.parent(v.id); prev >= 0; prev = tree.parent(prev)) {
+				p = p + " -> " + this.names.name(prev);
 			}
-			u.check = true;
-			count++;
-			LinkedList<Edge> edges = u.getEdges();
-			for (int i = 0; i < edges.size(); i++) {
-				Edge e = edges.get(i);
-				Vertex v = e.to();
-				int costUV = e.cost();
+			p = p + " (" + tree.dist(v.id) + ")";
+		} else {
+			p = p + " is unreachable";
+		}
+		return p;
+	}
 
-				if (costUV < 0) {
-					throw new IndexOutOfBoundsException("Negative edges are not approved");
-				}
-				if (v.path > u.path + costUV) {
-					v.path = u.path + costUV;
-					v.prev = u;
-					Path next = new Path(v, v.path);
-					distances.put(v, next);
-					queue.add(next);
-				}
+	/**
+	 * Returns the bacon number from center to name. Once buildLabels has finished this only merges two labels;
+	 * until then it is found with a bidirectional search. Names in different components need neither.
+	 * @param name - vertex at the end of the path
+	 * @param center - vertex the path starts from
+	 * @return - the distance from center to name, or CSRGraph.UNREACHED if there is no path or a name is not in the graph
+	 */
+	public int baconNumber(String name, String center) {
+		Vertex to = this.getVertex(name);
+		Vertex from = this.getVertex(center);
+		if (to == null || from == null || this.apart(from, to)) {
+			return CSRGraph.UNREACHED;
+		}
+		DynamicPaths dynamic = this.dynamic;
+		if (dynamic != null && dynamic.source == from.id) {		//kept up to date, so edits need no freeze and no search
+			return dynamic.tree().dist(to.id);
+		}
+		CSRGraph g = this.freeze();
+		PrunedLabelIndex index = this.labels;
+		if (index != null && index.graph == g) {
+			return index.distance(from.id, to.id);
+		}
+		int[] path = g.bidirectional(from.id, to.id);
+		if (path == null) {
+			return CSRGraph.UNREACHED;
+		}
+		int cost = 0;
+		for (int i = 1; i < path.length; i++) {
+			cost = cost + g.cost(path[i - 1], path[i]);
+		}
+		return cost;
+	}
+
+	/**
+	 * Returns the path from center to name without a full search from center, using a bidirectional search
+	 * that meets in the middle, or no search at all if they are in different components. The path is in the same
+	 * format as find:
+	 * name -> movie1 -> intermediate name -> movie2 -> .... movie x -> center (bacon number)
+	 * @param name - actor to find a path to
+	 * @param center - actor the path starts from
+	 * @return - String representation of the path.
+	 */
+	public String findBetween(String name, String center) {
+		Vertex to = this.getVertex(name);
+		Vertex from = this.getVertex(center);
+		DynamicPaths dynamic = this.dynamic;
+		if (from != null && dynamic != null && dynamic.source == from.id) {
+			return this.find(dynamic.tree(), name);
+		}
+		String p = name;
+		int[] path = null;
+		if (to != null && from != null && !this.apart(from, to)) {
+			path = this.freeze().bidirectional(from.id, to.id);
+		}
+		if (path != null) {
+			int cost = 0;
+			for (int i = path.length - 1; i > 0; i--) {
+				p = p + " -> " + this.names.name(path[i - 1]);
+				cost = cost + this.csr.cost(path[i - 1], path[i]);
 			}
+			p = p + " (" + cost + ")";
+		} else {
+			p = p + " is unreachable";
 		}
-		return distances;
+		return p;
 	}
 
 	/**
-	 * Returns the path from the center to the vertex associated with name. Path is put in the format of: 
+	 * Bounds the bacon number between center and name from the landmark index, without any search.
+	 * @param name - vertex at the end of the path
+	 * @param center - vertex the path starts from
+	 * @return - the lower and upper bound, either of which may be CSRGraph.UNREACHED, or null if a name is not in the graph
+	 */
+	public int[] separationBounds(String name, String center) {
+		Vertex to = this.getVertex(name);
+		Vertex from = this.getVertex(center);
+		if (to == null || from == null) {
+			return null;
+		}
+		LandmarkIndex index = this.landmarks();
+		return new int[] { index.lowerBound(from.id, to.id), index.upperBound(from.id, to.id) };
+	}
+
+	/**
+	 * Returns the path from center to name, found with an A* search guided by the landmark index, so that only the
+	 * vertices that can lie on a short path are visited. The path is in the same format as find:
 	 * name -> movie1 -> intermediate name -> movie2 -> .... movie x -> center (bacon number)
-	 * @param hm - hash map generated by Dijkstra algorithm for current center
 	 * @param name - actor to find a path to
+	 * @param center - actor the path starts from
 	 * @return - String representation of the path.
 	 */
-	public String find(HashMap<Vertex,Path> hm, String name){
-		MyGraph.Path path = this.findPath(hm, name);
+	public String separation(String name, String center) {
+		Vertex to = this.getVertex(name);
+		Vertex from = this.getVertex(center);
 		String p = name;
-		if (path != null){
-			MyGraph.Vertex prev = path.dest;
-			//System.out.println(prev);
-			while (prev.prev != null){
-				//System.out.println(prev.prev);
-				p = p + " -> " + prev.prev;
-				prev = prev.prev;
-			}
-			p = p + " (" + path.cost + ")";
+		int[] path = null;
+		if (to != null && from != null && !this.apart(from, to)) {
+			path = this.landmarks().path(from.id, to.id);
+		}
+		if (path != null) {
+			int cost = 0;
+			for (int i = path.length - 1; i > 0; i--) {
+				p = p + " -> " + this.names.name(path[i - 1]);
+				cost = cost + this.csr.cost(path[i - 1], path[i]);
+			}
+			p = p + " (" + cost + ")";
 		} else {
 			p = p + " is unreachable";
 		}
@@ -602,38 +1075,35 @@ public class MyGraph {
 
 	/**
 	 * Finds path from current center to vertex associated with data.
-	 * @param hm - hash map for the current center
+	 * @param tree - search from the current center
 	 * @param data - vertex to find a path to
-	 * @return - Path object associated with the vertex to be found
+	 * @return - Path object associated with the vertex to be found, or null if it is not reached
 	 */
-	public Path findPath(HashMap<Vertex,Path> hm, String data) {
-		Vertex v = null;
-		v = this.getVertex(data);
-		return hm.get(v);
+	public Path findPath(ShortestPathTree tree, String data) {
+		Vertex v = this.getVertex(data);
+		if (v == null || !tree.reached(v.id)) {
+			return null;
+		}
+		return new Path(v, tree.dist(v.id));
 	}
 
 	/**
-	 * Loads the connected LinkedList given a hash map generated by the Dijkstra algorithm.
+	 * Loads the connected LinkedList given a search from the current center.
 	 * An actor is added to the connected list if the actor can be connected to the current center.
-	 * Also updates reachable and unreachable.
-	 * @param hm - hash map generated by Dijkstra algorithm based on current center.
+	 * Also updates reachable and unreachable. If the components say how many actors the center reaches, the
+	 * actors after the last of them are not looked at.
+	 * @param tree - search from the current center
 	 */
-	public void loadConnected(HashMap<Vertex, Path> hm) {
+	public void loadConnected(ShortestPathTree tree) {
 		//		this.connected = new LinkedList<Vertex>();
 		if (this.connected.size() == 0){
 			this.unreachable = 0;
 			this.reachable = 0;
-			Integer[] counts = new Integer[10];
-			for (int i = 0; i < counts.length; i++) {
-				counts[i] = 0;
-			}
-			Iterator<Vertex> itr = hm.keySet().iterator();
-			while (itr.hasNext()) {
-				Vertex v = itr.next();
-				Path p = hm.get(v);
-				if (this.actors.contains(p.dest.data())) {
+			int all = this.reachable(this.vertex(tree.source()));
+			for (int id = this.nextActor(0); id >= 0 && this.reachable != all; id = this.nextActor(id + 1)) {
+				if (tree.reached(id)) {
 					this.reachable++;
-					this.connected.add(p.dest);
+					this.connected.add(this.vertex(id));
 				}
 			}
 			unreachable = this.actors() - reachable;
@@ -641,25 +1111,22 @@ public class MyGraph {
 	}
 
 	/**
-	 * Calculates the average distance from the current center to any other actor in the graph using a hash map generated by the Dijkstra algorithm.
+	 * Calculates the average distance from the current center to any other actor in the graph using a search from the center.
 	 * retrieves distance for each actor, then divides by number of actors.
 	 * Calculation does not include the center, or any unreachable actors.
-	 * @param hm - hash map of actors and their path length, constructed with the current center
+	 * @param tree - search from the current center
 	 * @return
 	 */
-	public float avgDist(HashMap<Vertex,Path> hm) {
-		float total = (float) 0.0;
+	public float avgDist(ShortestPathTree tree) {
+		long total = 0;
 		Iterator<Vertex> itr = connected.iterator();
 		while(itr.hasNext()) {
-			Vertex v = itr.next();
-			Path p = hm.get(v);
-			if (p != null) {
-				if (p.cost != 0 && p.cost != INF) {
-					total = total + (float) p.cost;
-				}
+			int d = tree.dist(itr.next().id);
+			if (d != 0 && d != CSRGraph.UNREACHED) {
+				total = total + d;
 			}
 		}
-		return total/connected.size();
+		return (float) total/connected.size();
 	}
 
 	/**
@@ -667,7 +1134,26 @@ public class MyGraph {
 	 * @return - number of actors in the current graph.
 	 */
 	public int actors() {
-		return this.actors.size();
+		return this.actors.cardinality();
+	}
+
+	/**
+	 * Returns true if v was inserted as an actor, rather than as a movie.
+	 * @param v - vertex to check
+	 * @return - true if v is an actor
+	 */
+	public boolean isActor(Vertex v) {
+		return this.actors.get(v.id);
+	}
+
+	/**
+	 * Steps through the actors in id order, without looking at any movies:
+	 * for (int id = nextActor(0); id >= 0; id = nextActor(id + 1))
+	 * @param id - id to start looking from
+	 * @return - id of the first actor at or after id, or -1 if there are no more actors
+	 */
+	public int nextActor(int id) {
+		return this.actors.nextSetBit(id);
 	}
 
 	/**
@@ -690,86 +1176,90 @@ public class MyGraph {
 	 * clears the current graph
 	 */
 	public void clear(){
-		this.vertices = new HashMap<String, Vertex>();
+		this.names = new NamePool(16);
+		this.live = new BitSet();
 		this.edges = new LinkedList<Edge>();
 		this.numVertex = 0;
 		this.numEdges = 0;
 		this.INF = 0;
-		this.actors = new LinkedList<String>();
+		this.actors = new BitSet();
 		this.connected = new LinkedList<Vertex>();
+		this.byId = new Vertex[16];
+		this.csr = null;
+		this.costars = null;
+		this.landmarks = null;
+		this.labels = null;
+		this.source = null;
+		this.components = null;
+		this.searches.clear();
+		this.dynamic = null;
 	}
 	
-	public void readIn(String source){ readIn(source, 0);}
-
 	/**
-	 * reads in database from provided source.
+	 * reads in database from provided source, in a single pass, so the number of lines does not need to be known.
+	 * A text file is parsed on several threads by a CreditLoader, and only the first time it is read. After that
+	 * the graph is saved to a binary GraphSnapshot next to it, which is read back in instead, without parsing, for as
+	 * long as the text file does not change. A URL is streamed through the same loader as it downloads.
+	 * Once the graph is in, its Components are found with one pass over the edges. Every credit goes both ways, so
+	 * actors in the same component can always reach each other.
 	 * @param source - URL or text file to be added in from
 	 */
-	public void readIn(String source, int num){
+	public void readIn(String source){
 		this.clear();
-		Scanner s = null;
-		if (source.substring(0, 5).equals("http:")){
+		boolean url = source.startsWith("http:") || source.startsWith("https:");
+		if (url) {
 			try {
-				s = new Scanner( new URL(source).openStream() );
+				URLConnection connection = new URL(source).openConnection();
+				try (InputStream in = connection.getInputStream()) {
+					long began = System.nanoTime();
+					int count = new CreditLoader(this.workers).load(this, in, connection.getContentLengthLong());
+					this.stats.loaded(count, System.nanoTime() - began);
+					this.components = Components.of(this.csr, this.live, this.actors, 0);
+					System.out.printf("%-78s", "Successfully logged " + count + " entries.");
+				}
 			} catch (MalformedURLException e) {
 				System.out.println("Malformed URL or sumthin");
 			} catch (IOException e) {
 				System.out.println("URL not found or sumthin");
+				this.clear();
 			}
-		} else{
-			try {
-				s = new Scanner(new File(source));
-			} catch (FileNotFoundException e) {
-				System.out.println("File not found");
-			}
+			return;
 		}
-		if (num == 0){		//if num = 0, number of lines in file is unknown
-			System.out.println("Counting number of entries...");
-			while (s.hasNextLine()) {
-				s.nextLine();
-				num++;
-			}
-		}
-
-		if (source.substring(0, 5).equals("http:")){
+		File snapshot = GraphSnapshot.fileFor(source);
+		if (GraphSnapshot.isCurrent(snapshot, new File(source))) {
 			try {
-				s = new Scanner( new URL(source).openStream() );
-			} catch (MalformedURLException e) {
-				System.out.println("Malformed URL or sumthin");
+				GraphSnapshot.read(this, snapshot);
+				this.source = new File(source);
+				this.components = Components.of(this.csr, this.live, this.actors, 0);
+				System.out.printf("%-78s", "Successfully loaded " + this.numVertex + " vertices from " + snapshot.getName() + ".");
+				return;
 			} catch (IOException e) {
-				System.out.println("URL not found or sumthin");
-			}
-		} else{
-			try {
-				s = new Scanner(new File(source));
-			} catch (FileNotFoundException e) {
-				System.out.println("File not found");
+				System.out.println("Snapshot could not be read, reading " + source + " instead");
+				this.clear();
 			}
 		}
-
-		int count = 0;
-		int ratio = num/45;
-		int numBars = 0;
-		if (ratio < 1) {
-			ratio = 1;
-			numBars = 40/num;
+		try {
+			long began = System.nanoTime();
+			int count = new CreditLoader(this.workers).load(this, new File(source));
+			this.stats.loaded(count, System.nanoTime() - began);
+			this.source = new File(source);
+			this.components = Components.of(this.csr, this.live, this.actors, 0);
+			System.out.printf("%-78s", "Successfully logged " + count + " entries.");
+		} catch (FileNotFoundException e) {
+			System.out.println("File not found");
+			return;
+		} catch (IOException e) {
+			System.out.println("File could not be read: " + e.getMessage());
+			this.clear();
+			return;
 		}
-		while (s.hasNextLine()) {
-			if (count % ratio == 0) {
-				numBars++;
-			}
-			printBar(numBars, count, num);
-			String line = s.nextLine();
-			String[] array = line.split("\\|");
-			String name = array[0];
-			String movie = array[1];
-			this.insertVertex(name, true);
-			this.insertVertex(movie);
-			this.insertEdge(name, movie, 0);
-			this.insertEdge(movie, name, 1);
-			count++;
+		try {
+			GraphSnapshot.write(this, new File(source), snapshot);
+		} catch (IOException e) {
+			System.out.println();
+			System.out.print("Snapshot could not be saved: " + e.getMessage());
+			snapshot.delete();
 		}
-		System.out.printf("%-78s", "Successfully logged " + count + " entries.");
 	}
 
 	/**
@@ -798,7 +1288,7 @@ public class MyGraph {
 
 	/**
 	 * Comparable Entry class is used to pair a vertex with its average distance, for the avgdist command.
-	 * Made comparable to easily retrieve lowest averages from priority queue.
+	 * Made comparable to easily sort the averages from lowest to highest.
 	 * @author Emily Rizzo
 	 */
 	public class Entry implements Comparable<Entry>{
@@ -836,97 +1326,502 @@ public class MyGraph {
 	/**
 	 * prints a list of the top n center vertices in the connected portion of the map containing the initial center.
 	 * Top centers are determined by having the lowest average bacon numbers.
+	 * Uses one worker thread per processor, or the number set by setWorkers.
 	 * @param n - number of top centers to find
-	 * @param hm - hashmap produced by Dijkstra's algorithm by the initial center.
+	 * @param tree - search from the initial center.
 	 */
-	public void topcenter(int n, HashMap<Vertex, Path> hm) {
-		int ratio = this.reachable()/45;
-		int numBars = 0;
-		if (ratio < 1) {
-			ratio = 1;
-			numBars = 45/this.reachable();
-		}
-		if (avgs.size() < n){		//if you have already populated avgs, no need to reprocess actors
-			System.out.println("Processing " + connected.size() + " actors...");
-			PriorityQueue<Entry> avgsqueue = new PriorityQueue<Entry>();		//place entries into priorityqueue to order them
-			for (int i = 0; i < connected.size(); i++) {
+	public void topcenter(int n, ShortestPathTree tree) {
+		this.topcenter(n, tree, this.workers);
+	}
 
-				if (i % ratio == 0) {
-					numBars++;
-				}
-				printBar(numBars, i+1, connected.size());
-				Vertex v = connected.get(i);
-				hm = dijkstra(v);
-				Float avg = this.avgDist(hm);
-				avgsqueue.add(new Entry(v, avg));
+	/**
+	 * prints a list of the top n center vertices in the connected portion of the map containing the initial center.
+	 * Top centers are determined by having the lowest average bacon numbers.
+	 * Only the best n are found exactly, with a TopCloseness search that stops searching from an actor as soon as it
+	 * cannot beat the n-th best average found so far. The searches are shared out between threads worker threads,
+	 * and the result is the same for any number of workers.
+	 * @param n - number of top centers to find
+	 * @param tree - search from the initial center.
+	 * @param threads - number of worker threads to use, at least 1
+	 */
+	public void topcenter(int n, ShortestPathTree tree, int threads) {
+		threads = Math.max(1, threads);
+		if (avgs.size() < n){		//if you have already populated avgs, no need to reprocess actors
+			System.out.println("Processing " + connected.size() + " actors on " + threads + " thread(s)...");
+			Entry[] top = this.topCenters(n, threads);
+			if (top == null) {
+				return;
 			}
-			Entry e = avgsqueue.poll();
-			while (e != null){		//fill avgs with the ordered entries from priority queue
-				avgs.add(e);
-				e = avgsqueue.poll();
+			avgs.clear();
+			for (int i = 0; i < top.length; i++) {
+				avgs.add(top[i]);
 			}
 			System.out.printf("%-78s", "Successfully processed " + connected.size() + " actors.");
 			System.out.println();
 		}
-		for (int i = 0; i < n; i++) {
+		for (int i = 0; i < n && i < avgs.size(); i++) {
 			System.out.println(avgs.get(i));
 		}
 	}
 
+	/**
+	 * Finds the n connected actors with the lowest average bacon numbers with a TopCloseness search, sharing the
+	 * searches out between threads worker threads and showing a progress bar. Searches are only cut short if the
+	 * distances between actors are the same both ways, since otherwise some actors may not reach all the others.
+	 * @param n - number of top centers to find
+	 * @param threads - number of worker threads to use; fewer than 1 uses 1
+	 * @return - the best n entries, lowest average first with ties in connected order, or null if interrupted
+	 */
+	Entry[] topCenters(int n, int threads) {
+		threads = Math.max(1, threads);
+		CSRGraph g = this.freeze();
+		Vertex[] sources = connected.toArray(new Vertex[connected.size()]);
+		int[] ids = new int[sources.length];
+		for (int i = 0; i < sources.length; i++) {
+			ids[i] = sources[i].id;
+		}
+		g.reverse();
+		final TopCloseness search = new TopCloseness(g, ids, n,
+				Diameter.symmetric(g, this.actors.isEmpty() ? this.live : this.actors));
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		LinkedList<Future<?>> jobs = new LinkedList<Future<?>>();
+		for (int t = 0; t < threads; t++) {
+			jobs.add(pool.submit(new Runnable() {
+				public void run() {
+					search.work();
+				}
+			}));
+		}
+		pool.shutdown();
+		try {
+			while (!pool.awaitTermination(100, TimeUnit.MILLISECONDS)) {
+				int count = search.done.get();
+				printBar(count * 45 / ids.length, count, ids.length);
+			}
+			Iterator<Future<?>> itr = jobs.iterator();
+			while (itr.hasNext()) {
+				itr.next().get();		//rethrows anything a worker threw
+			}
+		} catch (InterruptedException e) {
+			pool.shutdownNow();
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+		int[] positions = search.positions();
+		float[] averages = search.averages();
+		Entry[] top = new Entry[positions.length];
+		for (int i = 0; i < top.length; i++) {
+			top[i] = new Entry(sources[positions[i]], averages[i]);
+		}
+		return top;
+	}
+
+	/**
+	 * Prints an estimate of the top n centers, without a search from every connected actor. The average of every
+	 * connected actor is estimated from a random sample of pivots, as Eppstein and Wang do: one search back from each
+	 * pivot gives every actor's distance to it, and the mean of those distances estimates the actor's average.
+	 * By the empirical Bernstein inequality, which tightens with the spread of each actor's sampled distances, every
+	 * estimate is within the printed bound of the true average with 95% confidence. The bound needs the distance
+	 * between any two actors to be the same both ways, as in every graph built by readIn; on other graphs no bound is
+	 * claimed, and the best estimates are refined without ruling any actor out.
+	 * Of the actors the bound cannot rule out of the top n, only the ones with the best estimates (at most 16 per
+	 * center asked for, and at least 64) are then searched from exactly, and the best n of those are printed.
+	 * Averages between actors are usually so close that the bound alone rules out few of them.
+	 * @param n - number of top centers to find
+	 * @param tree - search from the initial center.
+	 * @param samples - number of pivots to sample, or 0 to sample until budget runs out
+	 * @param budget - milliseconds to spend sampling, if samples is 0
+	 */
+	public void topcenter(int n, ShortestPathTree tree, int samples, long budget) {
+		System.out.println("Sampling " + connected.size() + " actors...");
+		Entry[] top = this.sampledCenters(n, samples, budget, new Random());
+		if (top == null || top.length == 0) {		//nothing was sampled, so there is no bound to print
+			return;
+		}
+		if (Float.isInfinite(this.bound)) {
+			System.out.printf("%-78s", "Sampled " + this.sampled + " pivots; distances are not the same both ways, so the"
+					+ " estimates have no confidence bound.");
+		} else {
+			System.out.printf("%-78s", "Sampled " + this.sampled + " pivots; estimates were within " + String.format("%.3f", this.bound)
+					+ " with 95% confidence.");
+		}
+		System.out.println();
+		System.out.print(this.possible + " actors could be in the top " + n + "; refined the best " + this.refined + " exactly.");
+		System.out.println();
+		for (int i = 0; i < top.length; i++) {
+			System.out.println(top[i]);
+		}
+	}
+
+	/**
+	 * Finds the top n centers from a sample of pivots, as described for topcenter. Sets sampled, bound, possible and
+	 * refined, which are all 0 if nothing is sampled.
+	 * @param n - number of top centers to find
+	 * @param samples - number of pivots to sample, or 0 to sample until budget runs out
+	 * @param budget - milliseconds to spend sampling, if samples is 0
+	 * @param random - picks the pivots
+	 * @return - the top n centers with their exact averages, best first, or null if interrupted
+	 */
+	Entry[] sampledCenters(int n, int samples, long budget, Random random) {
+		this.sampled = 0;
+		this.bound = 0;
+		this.possible = 0;
+		this.refined = 0;
+		CSRGraph g = this.freeze();
+		int[] ids = new int[connected.size()];
+		if (ids.length == 0 || n <= 0) {
+			return new Entry[0];
+		}
+		Iterator<Vertex> itr = connected.iterator();
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = itr.next().id;
+		}
+		int[] pivots = ids.clone();
+		for (int i = pivots.length - 1; i > 0; i--) {		//shuffle, so any prefix is a uniform sample
+			int j = random.nextInt(i + 1);
+			int t = pivots[i];
+			pivots[i] = pivots[j];
+			pivots[j] = t;
+		}
+		boolean[] counted = new boolean[g.size()];
+		for (int i = 0; i < ids.length; i++) {
+			counted[ids[i]] = true;
+		}
+		long[] sums = new long[g.size()];
+		long[] squares = new long[g.size()];
+		int[] ecc = new int[1];
+		ecc[0] = Integer.MAX_VALUE;
+		g.reverse();
+		CSRGraph back = new CSRGraph(g.inOffsets, g.inSources, g.inCosts);
+		back.stats = g.stats;		//so the pivot searches show up in stats like any other
+		int total = samples > 0 ? Math.min(samples, pivots.length) : pivots.length;
+		long stop = System.currentTimeMillis() + budget;
+		int k = 0;
+		while (k < total && (samples > 0 || k == 0 || System.currentTimeMillis() < stop)) {
+			int count = Math.min(64, total - k);
+			sample(back, pivots, k, count, counted, sums, squares, ecc);
+			k = k + count;
+			printBar(k * 45 / total, k, total);
+		}
+		//every distance between connected actors is at most range, so the empirical Bernstein bound of Maurer and
+		//Pontil, with a union bound over every actor, gives widths that hold for all of them at once with 95% confidence.
+		//The eccentricity of a pivot only bounds distances away from it too if they are the same both ways, so
+		//otherwise there is no range, every width is infinite and no actor is ruled out
+		boolean symmetric = Diameter.symmetric(g, this.actors.isEmpty() ? this.live : this.actors);
+		double range = symmetric ? 2.0 * ecc[0] : Double.POSITIVE_INFINITY;
+		double log = Math.log(4.0 * ids.length / 0.05);
+		float[] estimates = new float[ids.length];
+		float[] widths = new float[ids.length];
+		float[] highs = new float[ids.length];
+		float widest = 0;
+		for (int i = 0; i < ids.length; i++) {
+			double mean = (double) sums[ids[i]] / k;
+			double variance = k < 2 ? 0 : Math.max(0, ((double) squares[ids[i]] - k * mean * mean) / (k - 1));
+			double width = k == pivots.length ? 0 : k < 2 ? range
+					: Math.sqrt(2 * variance * log / k) + 7 * range * log / (3 * (k - 1));
+			estimates[i] = (float) mean;
+			widths[i] = (float) Math.min(width, range);
+			highs[i] = estimates[i] + widths[i];
+			widest = Math.max(widest, widths[i]);
+		}
+		Arrays.sort(highs);
+		float threshold = highs[Math.min(n, ids.length) - 1];		//at least n actors are surely no worse than this
+		long[] order = new long[ids.length];
+		int possible = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (estimates[i] - widths[i] <= threshold) {
+				possible++;
+			}
+			order[i] = ((long) Float.floatToIntBits(estimates[i]) << 32) | i;		//orders like the estimates, as none is negative
+		}
+		Arrays.sort(order);
+		int c = Math.min(possible, Math.max(64, 16 * n));
+		int[] candidates = new int[c];
+		for (int i = 0; i < c; i++) {
+			candidates[i] = ids[(int) order[i]];
+		}
+		float[] averages = this.averages(g, candidates, ids, this.workers);
+		if (averages == null) {
+			return null;
+		}
+		Entry[] sorted = new Entry[c];
+		for (int i = 0; i < c; i++) {
+			sorted[i] = new Entry(this.vertex(candidates[i]), averages[i]);
+		}
+		Arrays.sort(sorted);
+		this.sampled = k;
+		this.bound = widest;
+		this.possible = possible;
+		this.refined = c;
+		return Arrays.copyOf(sorted, Math.min(n, c));
+	}
+
+	/**
+	 * Adds the distance from every connected actor to each of count pivots into sums, and its square into squares,
+	 * searching back from the pivots over the reversed graph. Lowers ecc[0] to the smallest eccentricity of any pivot
+	 * seen so far.
+	 * @param back - the frozen graph with every edge reversed
+	 * @param pivots - ids to search back from
+	 * @param from - position in pivots of the first pivot
+	 * @param count - number of pivots, at most 64
+	 * @param counted - true for the ids of the connected actors
+	 * @param sums - distance totals of every id
+	 * @param squares - totals of the squared distances of every id
+	 * @param ecc - one entry holding the smallest eccentricity found
+	 */
+	private void sample(CSRGraph back, int[] pivots, int from, int count, final boolean[] counted, final long[] sums,
+			final long[] squares, int[] ecc) {
+		final int[] far = new int[count];
+		if (back.isZeroOne()) {
+			MultiSourceBFS bfs = new MultiSourceBFS(back, 1);
+			bfs.run(pivots, from, count, new MultiSourceBFS.Visitor() {
+				public void reached(int v, int word, long lanes, int dist) {
+					if (counted[v]) {
+						sums[v] += (long) dist * Long.bitCount(lanes);
+						squares[v] += (long) dist * dist * Long.bitCount(lanes);
+						while (lanes != 0) {
+							far[Long.numberOfTrailingZeros(lanes)] = dist;
+							lanes = lanes & (lanes - 1);
+						}
+					}
+				}
+			});
+		} else {
+			int[] dist = new int[back.size()];
+			int[] parent = new int[back.size()];
+			for (int p = 0; p < count; p++) {
+				back.shortestPaths(pivots[from + p], dist, parent);
+				for (int v = 0; v < dist.length; v++) {
+					if (counted[v] && dist[v] != CSRGraph.UNREACHED) {
+						sums[v] += dist[v];
+						squares[v] += (long) dist[v] * dist[v];
+						far[p] = Math.max(far[p], dist[v]);
+					}
+				}
+			}
+		}
+		for (int p = 0; p < count; p++) {
+			ecc[0] = Math.min(ecc[0], far[p]);
+		}
+	}
+
+	/**
+	 * Finds the average bacon number from each of sources to the targets, sharing the sources out between threads
+	 * worker threads and showing a progress bar. Each worker keeps its own search arrays and only reads the frozen
+	 * graph, so the result is the same for any number of workers. If every edge costs 0 or 1, each worker searches
+	 * from 64 sources at once with a MultiSourceBFS.
+	 * @param g - frozen graph to search
+	 * @param sources - ids to find the averages of
+	 * @param targets - ids of the connected actors
+	 * @param threads - number of worker threads to use
+	 * @return - the average of each source, at the same position, or null if interrupted
+	 */
+	private float[] averages(final CSRGraph g, final int[] sources, final int[] targets, int threads) {
+		final float[] averages = new float[sources.length];
+		final AtomicInteger next = new AtomicInteger(0);
+		final AtomicInteger done = new AtomicInteger(0);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		LinkedList<Future<?>> jobs = new LinkedList<Future<?>>();
+		final boolean[] counted = new boolean[g.size()];
+		for (int i = 0; i < targets.length; i++) {
+			counted[targets[i]] = true;
+		}
+		for (int t = 0; t < threads; t++) {
+			jobs.add(pool.submit(new Runnable() {
+				public void run() {
+					if (g.isZeroOne()) {
+						closenessBatches(g, sources, counted, targets.length, averages, next, done);
+						return;
+					}
+					int[] dist = new int[g.size()];
+					int[] parent = new int[g.size()];
+					int i = next.getAndIncrement();
+					while (i < sources.length) {
+						averages[i] = closeness(g, sources[i], targets, dist, parent);
+						done.incrementAndGet();
+						i = next.getAndIncrement();
+					}
+				}
+			}));
+		}
+		pool.shutdown();
+		try {
+			while (!pool.awaitTermination(100, TimeUnit.MILLISECONDS)) {
+				int count = done.get();
+				printBar(count * 45 / sources.length, count, sources.length);
+			}
+			Iterator<Future<?>> itr = jobs.iterator();
+			while (itr.hasNext()) {
+				itr.next().get();		//rethrows anything a worker threw
+			}
+		} catch (InterruptedException e) {
+			pool.shutdownNow();
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+		return averages;
+	}
+
+	/**
+	 * Finds the average bacon number of source, the same way avgDist does, but straight from the search arrays.
+	 * @param g - frozen graph to search
+	 * @param source - id of the actor to find the average of
+	 * @param targets - ids of the connected actors
+	 * @param dist - scratch array of g.size() distances, private to the calling thread
+	 * @param parent - scratch array of g.size() predecessors, private to the calling thread
+	 * @return - average distance from source to the connected actors
+	 */
+	private float closeness(CSRGraph g, int source, int[] targets, int[] dist, int[] parent) {
+		g.shortestPaths(source, dist, parent);
+		long total = 0;
+		for (int j = 0; j < targets.length; j++) {
+			int d = dist[targets[j]];
+			if (d != 0 && d != CSRGraph.UNREACHED) {
+				total = total + d;
+			}
+		}
+		return (float) total/targets.length;
+	}
+
+	/**
+	 * Finds the average bacon numbers of the given actors 64 at a time with a MultiSourceBFS,
+	 * taking batches of sources from next until there are none left. Gives the same averages as closeness.
+	 * @param g - frozen graph to search, with every edge costing 0 or 1
+	 * @param ids - ids of the actors to find the averages of
+	 * @param counted - true for the ids of the connected actors
+	 * @param total - number of connected actors
+	 * @param averages - filled with the average of each actor in ids, at the same position
+	 * @param next - position in ids of the next batch to take
+	 * @param done - counts the actors finished, for the progress bar
+	 */
+	private void closenessBatches(CSRGraph g, int[] ids, final boolean[] counted, int total, float[] averages,
+			AtomicInteger next, AtomicInteger done) {
+		MultiSourceBFS bfs = new MultiSourceBFS(g, 1);
+		final long[] sums = new long[bfs.lanes()];
+		MultiSourceBFS.Visitor sum = new MultiSourceBFS.Visitor() {
+			public void reached(int v, int word, long lanes, int dist) {
+				if (dist != 0 && counted[v]) {
+					while (lanes != 0) {
+						sums[64 * word + Long.numberOfTrailingZeros(lanes)] += dist;
+						lanes = lanes & (lanes - 1);
+					}
+				}
+			}
+		};
+		int from = next.getAndAdd(bfs.lanes());
+		while (from < ids.length) {
+			int count = Math.min(bfs.lanes(), ids.length - from);
+			Arrays.fill(sums, 0);
+			bfs.run(ids, from, count, sum);
+			for (int k = 0; k < count; k++) {
+				averages[from + k] = (float) sums[k]/total;
+			}
+			done.addAndGet(count);
+			from = next.getAndAdd(bfs.lanes());
+		}
+	}
+
+	/**
+	 * Sets how much memory the cache of recent searches may use. Each cached search takes 8 bytes per vertex id.
+	 * @param bytes - most bytes to keep, or 0 to keep no searches
+	 */
+	public void setSearchCacheBudget(long bytes) {
+		this.searches.setBudget(bytes);
+	}
+
+	/**
+	 * Sets the number of worker threads used by topcenter.
+	 * @param threads - number of worker threads, at least 1
+	 */
+	public void setWorkers(int threads) {
+		this.workers = Math.max(1, threads);
+	}
+
+	/**
+	 * @return - counters and latencies of the graph's searches and loads, for as long as the graph has existed
+	 */
+	public GraphStats stats() {
+		return this.stats;
+	}
+
 	/**
 	 * Creates a table of the counts of bacon numbers for the given center from 0 up to the longest.
-	 * @param hm - hashmap generated by Dijkstra's algorithm for the given center.
+	 * Stops looking at actors once it has counted every actor in the center's component, if the components say how
+	 * many that is. Nothing is written to the graph or printed, so tables for different centers can be made at once.
+	 * @param tree - search from the given center.
 	 */
-	public Integer[] table(HashMap<Vertex, Path> hm) {
-		this.unreachable = 0;
-		this.reachable = 0;
+	public Integer[] table(ShortestPathTree tree) {
+		int reached = 0;
 		Integer[] counts = new Integer[10];
 		for (int i = 0; i < counts.length; i++) {
 			counts[i] = 0;
 		}
-		Iterator<Vertex> itr = hm.keySet().iterator();
-		while (itr.hasNext()) {
-			Vertex v = itr.next();
-			Path p = hm.get(v);
-			if (this.actors.contains(p.dest.data())) {
-				if (p.cost == 0) {
-					System.out.println("Table for: " + p.dest);
-				}
-				if (p.cost < counts.length) {
-					counts[p.cost]++;
-				} else if(p.cost < INF) {
-					Integer[] resize = new Integer[p.cost];
+		int all = this.reachable(this.vertex(tree.source()));
+		for (int id = this.nextActor(0); id >= 0 && reached != all; id = this.nextActor(id + 1)) {
+			if (tree.reached(id)) {
+				int cost = tree.dist(id);
+				if (cost >= counts.length) {
+					Integer[] resize = new Integer[Math.max(cost + 1, 2 * counts.length)];
 					for (int i = 0; i < counts.length; i++) {
 						resize[i] = counts[i];
 					}
-					for (int i = counts.length; i < p.cost; i++) {
+					for (int i = counts.length; i < resize.length; i++) {
 						resize[i] = 0;
 					}
-					resize[p.cost] = 1;
 					counts = resize;
 				}
-				this.reachable++;
+				counts[cost]++;
+				reached++;
 			}
 		}
-		unreachable = this.actors() - reachable;
 		return counts;
 
 	}
 
 	/**
-	 * prints out the table generated by table();
+	 * prints out the table generated by table(), and updates reachable and unreachable to match it.
 	 * @param counts - array of counts
 	 */
 	public void printTable(Integer[]counts) {
+		this.reachable = total(counts);
+		this.unreachable = this.actors() - this.reachable;
+		System.out.print(tableString(counts, unreachable));
+	}
+
+	/**
+	 * @param counts - array of counts generated by table()
+	 * @return - number of actors counted, i.e. actors the center reaches
+	 */
+	public static int total(Integer[] counts) {
+		int total = 0;
+		for (int i = 0; i < counts.length; i++) {
+			total = total + counts[i];
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the table generated by table() in the format printed by printTable:
+	 * Number (bacon number) : (count)
+	 * @param counts - array of counts
+	 * @param unreachable - number of actors the center cannot reach
+	 * @return - one line for every bacon number with a count, then one for unreachable actors if there are any
+	 */
+	public String tableString(Integer[] counts, int unreachable) {
+		String table = "";
 		for (int i = 0; i < counts.length; i++) {
 			if (counts[i] != 0) {
-				System.out.printf("%-10s : %10s", "Number " + i, counts[i]);
-				System.out.println();
+				table = table + String.format("%-10s : %10s", "Number " + i, counts[i]) + "\n";
 			}
 		}
 		if (unreachable != 0) {
-			System.out.printf("%11s: %10s", "Unreachable", unreachable);
+			table = table + String.format("%11s: %10s", "Unreachable", unreachable);
 		}
+		return table;
 	}
 
 	/**
@@ -938,10 +1833,9 @@ public class MyGraph {
 		String e = name + " has been in:" + "\n";
 		Vertex v = getVertex(name);
 		if (v != null) {
-			LinkedList<Edge> edges = v.getEdges();
-			Iterator<Edge> itr = edges.iterator();
-			while (itr.hasNext()) {
-				e  = e + itr.next().to() + "\n";
+			CSRGraph g = this.freeze();
+			for (int i = g.offsets[v.id]; i < g.offsets[v.id + 1]; i++) {
+				e  = e + this.names.name(g.targets[i]) + "\n";
 			}
 		} else {
 			e = e + "No movies in this database :(";
@@ -953,43 +1847,53 @@ public class MyGraph {
 	/**
 	 * returns any one of the longest paths in the connected portion of the graph.
 	 * @param counts - array generated by table of all counts (used to find longest path length)
-	 * @param hm - hash map generated by dijkstra's algorithm.
+	 * @param tree - search from the current center.
 	 * @return
 	 */
-	public String longest(Integer[] counts, HashMap<Vertex, Path> hm) {
+	public String longest(Integer[] counts, ShortestPathTree tree) {
 		int highest = 0;
 		for (int i = 0; i < counts.length; i++) {
 			if (counts[i] != 0) {
 				highest = i;
 			}
 		}
-		Iterator<Vertex> itr = hm.keySet().iterator();
-		while (itr.hasNext()) {
-			Vertex v = itr.next();
-			Path p = hm.get(v);
-			if (this.actors.contains(p.dest.data())) {
-				if (p.cost == highest) {
-					MyGraph.Vertex prev = p.dest;
-					String path = prev.data();
-					while (prev.prev != null){
-						//System.out.println(path);
-						path = path + " -> " + prev.prev;
-						prev = prev.prev;
-
-					}
-					path = path + " (" + p.cost + ")";
-					return path;
+		for (int id = this.nextActor(0); id >= 0; id = this.nextActor(id + 1)) {
+			if (tree.reached(id) && tree.dist(id) == highest) {
+				String path = this.names.name(id);
+				for (int prev = tree.parent(id); prev >= 0; prev = tree.parent(prev)) {
+					path = path + " -> " + this.names.name(prev);
 				}
+				path = path + " (" + highest + ")";
+				return path;
 			}
-
 		}
 		return "";
 	}
 
+	/**
+	 * Finds the diameter of the largest component of the graph: the longest bacon number between any two of its actors,
+	 * or between any two of its vertices if the graph has no actors. Unlike longest, this does not depend on the center,
+	 * and it only takes a handful of searches rather than one from every actor.
+	 * @return - the diameter, or null if the graph is empty
+	 */
+	public Diameter diameter() {
+		CSRGraph g = this.freeze();
+		return Diameter.of(g, this.actors.isEmpty() ? this.live : this.actors, this.components());
+	}
+
+	/**
+	 * Returns one of the longest shortest paths between two actors of the largest component, in the same format as find.
+	 * @param d - diameter found by diameter()
+	 * @return - String representation of the path.
+	 */
+	public String longest(Diameter d) {
+		return this.findBetween(this.names.name(d.to()), this.names.name(d.from()));
+	}
+
 	/**
 	 * Prints loading bar for large data reads (initial readIn and topcenter)
 	 */
-	private void printBar(int numBars, int count, int num){
+	void printBar(int numBars, int count, int num){
 		String b = "";
 		String space = "";
 		for (int i = 0; i < 45 - numBars; i++) {
@@ -1002,4 +1906,17 @@ public class MyGraph {
 		System.out.printf("%-45s .... %s", bar, "( " + count + " of " + num + " )" + "\r");
 
 	}
+
+	/**
+	 * Prints loading bar for a read measured in bytes, in KB.
+	 * @param done - bytes read so far
+	 * @param total - bytes to read, or -1 if that is not known
+	 */
+	void printProgress(long done, long total){
+		if (total <= 0) {
+			System.out.printf("%-45s .... %s", "{ reading }", "( " + (done >> 10) + " KB )" + "\r");
+			return;
+		}
+		printBar((int) (Math.min(done, total) * 45 / total), (int) (done >> 10), (int) (total >> 10));
+	}
 }
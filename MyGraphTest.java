@@ -3,7 +3,26 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
@@ -156,4 +175,913 @@ public class MyGraphTest {
     	test.insertEdge("A", "B", 2);
     	System.out.println(test);
     }
+
+    @Test
+    public void testZeroOneBFS() {
+	String[][] credits = {{"Kevin", "Movie1"}, {"Carl", "Movie1"}, {"Carl", "Movie2"}, {"Stacy", "Movie2"},
+		{"Stacy", "Movie3"}, {"Kevin", "Movie3"}, {"Dan", "Movie4"}, {"Stacy", "Movie4"}, {"Ed", "Movie5"}};
+	MyGraph test = creditGraph(credits);
+	CSRGraph g = test.freeze();
+	assertTrue("readIn style graph should only have 0 and 1 edges", g.isZeroOne());
+	int[] dist = new int[g.size()];
+	int[] parent = new int[g.size()];
+	int[] bfsDist = new int[g.size()];
+	int[] bfsParent = new int[g.size()];
+	int start = test.getVertex("Kevin").id;
+	assertEquals("Both searches should reach the same vertices", g.dijkstra(start, dist, parent), g.zeroOneBFS(start, bfsDist, bfsParent));
+	for (int i = 0; i < g.size(); i++) {
+	    assertEquals("Distances should match dijkstra", dist[i], bfsDist[i]);
+	}
+	assertEquals("Dan is 2 away from Kevin", bfsDist[test.getVertex("Dan").id], 2);
+	assertEquals("Ed is unreachable", bfsDist[test.getVertex("Ed").id], CSRGraph.UNREACHED);
+    }
+
+    @Test
+    public void testSearchContext() {
+	Random r = new Random(5);
+	int n = 400;
+	int m = 1600;
+	int[] from = new int[m];
+	int[] to = new int[m];
+	int[] cost = new int[m];
+	for (int i = 0; i < m; i++) {
+	    from[i] = r.nextInt(n);
+	    to[i] = r.nextInt(n);
+	    cost[i] = r.nextInt(5);
+	}
+	CSRGraph g = CSRGraph.fromEdges(n, from, to, cost, m);
+	int[] dist = new int[n];
+	int[] parent = new int[n];
+	for (int q = 0; q < 300; q++) {
+	    int s = r.nextInt(n);
+	    int t = r.nextInt(n);
+	    g.dijkstra(s, dist, parent);
+	    int[] path = g.bidirectional(s, t);
+	    if (dist[t] == CSRGraph.UNREACHED) {
+		assertEquals(path, null);
+	    } else {
+		int total = 0;
+		for (int i = 1; i < path.length; i++) {
+		    total += g.cost(path[i - 1], path[i]);
+		}
+		assertEquals("Pair searches reusing contexts should stay exact", total, dist[t]);
+		assertEquals(path[0], s);
+		assertEquals(path[path.length - 1], t);
+	    }
+	}
+	assertTrue("Contexts should be given back to the pool", g.contexts.size() > 0
+		&& g.contexts.size() <= Runtime.getRuntime().availableProcessors());
+	SearchContext c = g.context();
+	c.label(7, 3, -1);
+	c.settle(7);
+	c.search = Integer.MAX_VALUE - 1;
+	c.begin();
+	c.label(8, 1, 7);
+	assertTrue(c.reached(8) && !c.reached(7) && !c.settled(7));
+	c.begin();
+	assertEquals("Running out of search numbers should forget every label", c.dist(8), CSRGraph.UNREACHED);
+	g.release(c);
+    }
+
+    @Test
+    public void testFindBetween() {
+	String[][] credits = {{"Kevin", "Movie1"}, {"Carl", "Movie1"}, {"Carl", "Movie2"}, {"Stacy", "Movie2"},
+		{"Stacy", "Movie3"}, {"Dan", "Movie3"}, {"Dan", "Movie4"}, {"Ed", "Movie4"}, {"Kevin", "Movie5"}, {"Flo", "Movie6"}};
+	MyGraph test = creditGraph(credits);
+	ShortestPathTree hm = test.dijkstra(test.getVertex("Kevin"));
+	assertEquals("Pair search should match find from the center", test.find(hm, "Ed"), test.findBetween("Ed", "Kevin"));
+	assertEquals("Ed -> Movie4 -> Dan -> Movie3 -> Stacy (2)", test.findBetween("Ed", "Stacy"));
+	assertEquals("Flo is unreachable", test.findBetween("Flo", "Kevin"));
+	assertEquals("Kevin (0)", test.findBetween("Kevin", "Kevin"));
+    }
+
+    @Test
+    public void testComponents() throws IOException {
+	String[][] credits = {{"Kevin", "Movie1"}, {"Carl", "Movie1"}, {"Carl", "Movie2"}, {"Stacy", "Movie2"},
+		{"Flo", "Movie3"}, {"Gus", "Movie3"}};
+	MyGraph test = creditGraph(credits);
+	Components c = test.components();
+	assertEquals(c.count(), 2);
+	assertTrue("Credits go both ways", c.isSymmetric());
+	assertTrue(c.together(test.getVertex("Kevin").id, test.getVertex("Stacy").id));
+	assertFalse(c.together(test.getVertex("Kevin").id, test.getVertex("Flo").id));
+	assertEquals(test.reachable(test.getVertex("Kevin")), 3);
+	assertEquals(c.actors(c.largest()), 3);
+	assertEquals(c.size(c.largest()), 5);
+	assertEquals("Flo is unreachable", test.findBetween("Flo", "Kevin"));
+	assertEquals(test.baconNumber("Flo", "Kevin"), CSRGraph.UNREACHED);
+	ShortestPathTree hm = test.dijkstra(test.getVertex("Kevin"));
+	test.printTable(test.table(hm));
+	assertEquals("Table should agree with the components", test.unreachable(), 2);
+	test.insertVertex("Movie4");
+	test.insertEdge("Stacy", "Movie4", 0);
+	assertFalse("Half a credit has no edge back", c.isSymmetric());
+	test.insertEdge("Movie4", "Stacy", 1);
+	assertTrue("The other half closes the pair", c.isSymmetric());
+	test.insertEdge("Gus", "Movie4", 0);
+	assertSame("Inserting edges should keep the components", test.components(), c);
+	assertEquals(c.count(), 1);
+	assertEquals(test.reachable(test.getVertex("Kevin")), -1);
+	test.insertEdge("Movie4", "Gus", 1);
+	assertTrue(c.isSymmetric());
+	assertEquals("Whole credits keep the count of actors", test.reachable(test.getVertex("Kevin")), 5);
+	test.removeEdge("Movie4", "Gus");
+	assertEquals("Stacy -> Movie4 -> Gus (1)", test.findBetween("Stacy", "Gus"));
+	test.removeEdge("Gus", "Movie4");
+	assertEquals("Removing an edge should split the component", test.components().count(), 2);
+	assertTrue(test.components().isSymmetric());
+	test.removeVertex("Carl");
+	assertEquals(test.components().count(), 3);
+	assertEquals(test.findBetween("Stacy", "Kevin"), "Stacy is unreachable");
+
+	File source = File.createTempFile("credits", ".txt");
+	source.deleteOnExit();
+	GraphSnapshot.fileFor(source.getPath()).deleteOnExit();
+	PrintWriter out = new PrintWriter(source, "UTF-8");
+	out.println("Kevin|Movie1");
+	out.println("Carl|Movie1");
+	out.println("Nobody|Movie2");
+	out.close();
+	MyGraph text = new MyGraph();
+	text.readIn(source.getPath());
+	assertTrue("readIn should find the components", text.components != null);
+	assertEquals(text.components().count(), 2);
+	assertEquals(text.reachable(text.getVertex("Carl")), 2);
+	MyGraph mapped = new MyGraph();
+	mapped.readIn(source.getPath());
+	assertEquals("Components should be found after reading a snapshot", mapped.components.count(), 2);
+    }
+
+    @Test
+    public void testActors() {
+	String[][] credits = {{"Kevin", "Movie1"}, {"Carl", "Movie1"}, {"Carl", "Movie2"}, {"Stacy", "Movie2"}, {"Flo", "Movie3"}};
+	MyGraph test = creditGraph(credits);
+	assertEquals("4 actors", test.actors(), 4);
+	assertTrue(test.isActor(test.getVertex("Carl")));
+	assertFalse(test.isActor(test.getVertex("Movie1")));
+	String names = "";
+	for (int id = test.nextActor(0); id >= 0; id = test.nextActor(id + 1)) {
+	    names = names + test.vertex(id) + " ";
+	}
+	assertEquals("Actors should be stepped through in id order", "Kevin Carl Stacy Flo ", names);
+	ShortestPathTree hm = test.dijkstra(test.getVertex("Kevin"));
+	Integer[] counts = test.table(hm);
+	assertEquals("Table should only count actors", (int) counts[0] + counts[1] + counts[2], 3);
+	assertEquals("Making a table should not change the graph", test.unreachable(), 0);
+	test.printTable(counts);
+	assertEquals(test.reachable(), 3);
+	assertEquals("Flo is unreachable", test.unreachable(), 1);
+	test.removeVertex("Flo");
+	assertEquals("Removed actors should not be counted", test.actors(), 3);
+    }
+
+    @Test
+    public void testCoStarGraph() {
+	String[][] credits = {{"Kevin", "Movie1"}, {"Carl", "Movie1"}, {"Carl", "Movie2"}, {"Stacy", "Movie2"},
+		{"Stacy", "Movie3"}, {"Dan", "Movie3"}, {"Kevin", "Movie3"}, {"Ed", "Movie4"}, {"Dan", "Movie4"}, {"Flo", "Movie5"}};
+	MyGraph test = creditGraph(credits);
+	String[] names = {"Kevin", "Carl", "Stacy", "Dan", "Ed", "Flo", "Movie1", "Movie2", "Movie3", "Movie4", "Movie5"};
+	ShortestPathTree full = test.dijkstra(test.getVertex("Carl"));
+	Integer[] costs = new Integer[names.length];
+	for (int i = 0; i < names.length; i++) {
+	    MyGraph.Path p = test.findPath(full, names[i]);
+	    costs[i] = p == null ? null : p.cost;
+	}
+	assertTrue("Credit graph should be projected", test.project());
+	assertEquals("Six pairs of co-stars, each linked both ways", test.costars.edges(), 12);
+	ShortestPathTree projected = test.dijkstra(test.getVertex("Carl"));
+	for (int i = 0; i < names.length; i++) {
+	    MyGraph.Path p = test.findPath(projected, names[i]);
+	    assertEquals("Projected search should find the same distances", p == null ? null : p.cost, costs[i]);
+	}
+	assertTrue("Paths should still go through movies", test.find(projected, "Ed").startsWith("Ed -> Movie4 -> Dan -> Movie3 -> "));
+	assertEquals("Flo is unreachable", test.find(projected, "Flo"));
+	test.insertEdge("Kevin", "Carl", 0);
+	assertEquals("Changing the graph should drop the projection", test.costars, null);
+	assertFalse("Actor to actor edges cannot be projected", test.project());
+    }
+
+    @Test
+    public void testSearchCache() {
+	String[][] credits = {{"Kevin", "Movie1"}, {"Carl", "Movie1"}, {"Carl", "Movie2"}, {"Stacy", "Movie2"}};
+	MyGraph test = creditGraph(credits);
+	String first = test.find(test.dijkstra(test.getVertex("Kevin")), "Stacy");
+	test.dijkstra(test.getVertex("Stacy"));
+	assertEquals("Going back to a center should reuse its search", first, test.find(test.dijkstra(test.getVertex("Kevin")), "Stacy"));
+	assertEquals("One search should have been reused", test.stats().getSearchCacheHits(), 1);
+	assertEquals(test.searches.size(), 2);
+	test.setSearchCacheBudget(8 * 7);		//room for one search of 7 ids
+	assertEquals("Least recently used search should be dropped", test.searches.size(), 1);
+	assertTrue("Most recent center should stay", test.searches.get(test.getVertex("Kevin").id) != null);
+	test.insertEdge("Movie1", "Stacy", 1);
+	assertEquals("Changing the graph should drop every search", test.searches.size(), 0);
+	assertEquals("Stacy -> Movie1 -> Kevin (1)", test.find(test.dijkstra(test.getVertex("Kevin")), "Stacy"));
+    }
+
+    @Test
+    public void testShortestPathTree() {
+	MyGraph test = new MyGraph();
+	for (int i = 0; i < 12; i++) {		//a chain of 13 actors, each in one movie with the next
+	    test.insertVertex("Actor" + i, true);
+	    test.insertVertex("Actor" + (i + 1), true);
+	    test.insertVertex("Movie" + i);
+	    test.insertEdge("Actor" + i, "Movie" + i, 0);
+	    test.insertEdge("Movie" + i, "Actor" + i, 1);
+	    test.insertEdge("Actor" + (i + 1), "Movie" + i, 0);
+	    test.insertEdge("Movie" + i, "Actor" + (i + 1), 1);
+	}
+	ShortestPathTree first = test.dijkstra(test.getVertex("Actor0"));
+	String path = test.find(first, "Actor2");
+	ShortestPathTree second = test.dijkstra(test.getVertex("Actor12"));
+	assertEquals("A later search should not change an earlier result", path, test.find(first, "Actor2"));
+	assertEquals("Actor2 -> Movie1 -> Actor1 -> Movie0 -> Actor0 (2)", path);
+	assertEquals(second.dist(test.getVertex("Actor0").id), 12);
+	assertEquals(second.parent(second.source()), -1);
+	Integer[] counts = test.table(first);
+	assertEquals("Table should grow past 10", counts[12], (Integer) 1);
+	assertTrue("Longest path should end at Actor12", test.longest(counts, first).startsWith("Actor12 -> Movie11 -> Actor11 -> "));
+	assertEquals(test.findPath(first, "Actor12").cost, (Integer) 12);
+    }
+
+    @Test
+    public void testTrack() {
+	MyGraph test = new MyGraph();
+	Random random = new Random(14);
+	for (int i = 0; i < 40; i++) {
+	    test.insertVertex("Actor" + i, true);
+	    test.insertVertex("Movie" + i);
+	}
+	for (int i = 0; i < 120; i++) {
+	    int a = random.nextInt(40);
+	    int m = random.nextInt(40);
+	    test.insertEdge("Actor" + a, "Movie" + m, 0);
+	    test.insertEdge("Movie" + m, "Actor" + a, 1);
+	}
+	ShortestPathTree tree = test.track(test.getVertex("Actor0"));
+	assertSame("A tracked center should not be searched again", tree, test.dijkstra(test.getVertex("Actor0")));
+	for (int i = 0; i < 300; i++) {
+	    String from = (random.nextBoolean() ? "Actor" : "Movie") + random.nextInt(45);
+	    String to = (random.nextBoolean() ? "Actor" : "Movie") + random.nextInt(45);
+	    int change = random.nextInt(10);
+	    if (change < 4) {
+		test.insertVertex(from);
+		test.insertVertex(to);
+		test.insertEdge(from, to, random.nextInt(3));
+	    } else if (change < 8 && test.getVertex(from) != null && test.getVertex(to) != null) {
+		test.removeEdge(from, to);
+	    } else if (change < 9 && test.getVertex(from) != null && !from.equals("Actor0")) {
+		test.removeVertex(from);
+	    }
+	    tree = test.tracked();
+	    CSRGraph g = test.freeze();
+	    int[] dist = new int[g.size()];
+	    int[] parent = new int[g.size()];
+	    g.shortestPaths(tree.source(), dist, parent);
+	    for (int id = 0; id < g.size(); id++) {
+		assertEquals("Distance of " + id + " after change " + i, dist[id], tree.dist(id));
+		if (tree.reached(id) && id != tree.source()) {
+		    MyGraph.Edge e = test.getEdge(test.vertex(tree.parent(id)), test.vertex(id));
+		    assertEquals("Parent of " + id + " should be on a shortest path", tree.dist(tree.parent(id)) + e.cost(), tree.dist(id));
+		}
+	    }
+	}
+	MyGraph.Vertex center = test.getVertex("Actor0");
+	ShortestPathTree live = test.dijkstra(center);
+	test.components();
+	test.insertEdge("Actor0", "Movie7", 0);
+	test.insertEdge("Movie7", "Actor0", 1);
+	test.removeEdge("Movie7", "Actor0");
+	long hits = test.stats().getSearchCacheHits();
+	assertSame("A tracked tree is repaired in place", test.dijkstra(center), live);
+	assertEquals("Handing out the tracked tree counts as a cache hit", test.stats().getSearchCacheHits(), hits + 1);
+	test.printTable(test.table(live));
+	test.loadConnected(live);
+	assertEquals(test.baconNumber("Movie7", "Actor0"), live.dist(test.getVertex("Movie7").id));
+	assertEquals(test.findBetween("Movie7", "Actor0"), test.find(live, "Movie7"));
+	assertEquals("Queries from a tracked center should not freeze the graph", test.csr, null);
+	CSRGraph g = test.freeze();
+	int[] dist = new int[g.size()];
+	int[] parent = new int[g.size()];
+	int reached = 0;
+	g.shortestPaths(center.id, dist, parent);
+	for (int id = test.nextActor(0); id >= 0; id = test.nextActor(id + 1)) {
+	    reached += dist[id] == CSRGraph.UNREACHED ? 0 : 1;
+	}
+	assertEquals("Table should count what a search reaches", test.reachable(), reached);
+	test.removeVertex("Actor0");
+	assertEquals("Removing the center should stop tracking", test.tracked(), null);
+    }
+
+    @Test
+    public void testLandmarkIndex() {
+	MyGraph test = new MyGraph();
+	Random random = new Random(15);
+	for (int i = 0; i < 60; i++) {
+	    test.insertVertex("Actor" + i, true);
+	    test.insertVertex("Movie" + i);
+	}
+	for (int i = 0; i < 100; i++) {		//leaves a few actors in no movie at all
+	    int a = random.nextInt(60);
+	    int m = random.nextInt(60);
+	    test.insertEdge("Actor" + a, "Movie" + m, 0);
+	    test.insertEdge("Movie" + m, "Actor" + a, 1);
+	}
+	LandmarkIndex index = test.landmarks();
+	assertEquals(index.landmarks().length, LandmarkIndex.DEFAULT_LANDMARKS);
+	CSRGraph g = test.freeze();
+	int[] dist = new int[g.size()];
+	int[] parent = new int[g.size()];
+	for (int s = 0; s < g.size(); s++) {
+	    g.shortestPaths(s, dist, parent);
+	    for (int t = 0; t < g.size(); t++) {
+		assertTrue("Lower bound from " + s + " to " + t, index.lowerBound(s, t) <= dist[t]);
+		assertTrue("Upper bound from " + s + " to " + t, index.upperBound(s, t) >= dist[t]);
+		int[] path = index.path(s, t);
+		if (dist[t] == CSRGraph.UNREACHED) {
+		    assertEquals("No path from " + s + " to " + t, path, null);
+		} else {
+		    int cost = 0;
+		    for (int i = 1; i < path.length; i++) {
+			cost = cost + g.cost(path[i - 1], path[i]);
+		    }
+		    assertEquals("Length of path from " + s + " to " + t, cost, dist[t]);
+		}
+	    }
+	}
+	String a = test.separation("Actor5", "Actor0");
+	String b = test.findBetween("Actor5", "Actor0");
+	assertEquals("Both searches should find the same bacon number", a.substring(a.lastIndexOf(" ") + 1), b.substring(b.lastIndexOf(" ") + 1));
+	assertEquals(a.substring(a.lastIndexOf(" ") + 1), "(6)");
+	assertTrue(a.startsWith("Actor5 -> ") && a.endsWith(" -> Actor0 (6)"));
+	test.insertVertex("Actor60", true);
+	assertEquals("Changing the graph should drop the index", test.landmarks, null);
+	assertEquals(test.separation("Actor60", "Actor0"), "Actor60 is unreachable");
+	assertEquals(test.separationBounds("Actor60", "Actor0")[0], CSRGraph.UNREACHED);
+    }
+
+    @Test
+    public void testPrunedLabelIndex() throws IOException {
+	MyGraph test = new MyGraph();
+	Random random = new Random(16);
+	for (int i = 0; i < 50; i++) {
+	    test.insertVertex("V" + i);
+	}
+	for (int i = 0; i < 120; i++) {		//directed edges of any cost, so in and out labels differ
+	    test.insertEdge("V" + random.nextInt(50), "V" + random.nextInt(50), random.nextInt(4));
+	}
+	CSRGraph g = test.freeze();
+	PrunedLabelIndex index = PrunedLabelIndex.build(g);
+	int[] dist = new int[g.size()];
+	int[] parent = new int[g.size()];
+	for (int s = 0; s < g.size(); s++) {
+	    g.shortestPaths(s, dist, parent);
+	    for (int t = 0; t < g.size(); t++) {
+		assertEquals("Distance from " + s + " to " + t, dist[t], index.distance(s, t));
+	    }
+	}
+	File small = File.createTempFile("labels", ".pll");
+	small.deleteOnExit();
+	index.write(small, small, 44);
+	PrunedLabelIndex windowed = PrunedLabelIndex.read(small, g, 52);
+	assertTrue("Labels written and read through small windows should come back whole",
+		Arrays.equals(windowed.inHubs, index.inHubs) && Arrays.equals(windowed.outDists, index.outDists)
+		&& Arrays.equals(windowed.outOffsets, index.outOffsets));
+
+	File source = File.createTempFile("credits", ".txt");
+	File labels = PrunedLabelIndex.fileFor(source.getPath());
+	source.deleteOnExit();
+	labels.deleteOnExit();
+	GraphSnapshot.fileFor(source.getPath()).deleteOnExit();
+	PrintWriter out = new PrintWriter(source, "UTF-8");
+	out.println("Kevin|Movie1");
+	out.println("Carl|Movie1");
+	out.println("Carl|Movie2");
+	out.println("Zoe|Movie2");
+	out.println("Nobody|Movie3");
+	out.close();
+	MyGraph text = new MyGraph();
+	text.readIn(source.getPath());
+	assertEquals("Searches until the labels are built", text.baconNumber("Zoe", "Kevin"), 2);
+	assertEquals(text.buildLabels(false), null);
+	assertTrue("Labels should be saved next to the database", PrunedLabelIndex.isCurrent(labels, source));
+	assertFalse("Labels are moved into place", new File(labels.getPath() + ".tmp").exists());
+	assertEquals(text.baconNumber("Zoe", "Kevin"), 2);
+	assertEquals(text.baconNumber("Nobody", "Kevin"), CSRGraph.UNREACHED);
+	MyGraph mapped = new MyGraph();
+	mapped.readIn(source.getPath());
+	assertEquals("Saved labels should be read back", mapped.buildLabels(true), null);
+	assertEquals(mapped.labels.entries(), text.labels.entries());
+	assertEquals(mapped.baconNumber("Kevin", "Zoe"), 2);
+	mapped.removeEdge("Carl", "Movie2");
+	assertEquals("Changing the graph should drop the labels", mapped.labels, null);
+	assertEquals(mapped.baconNumber("Zoe", "Kevin"), CSRGraph.UNREACHED);
+    }
+
+    @Test
+    public void testDiameter() {
+	for (int seed = 0; seed < 20; seed++) {
+	    MyGraph test = new MyGraph();
+	    Random random = new Random(seed);
+	    for (int i = 0; i < 80; i++) {
+		test.insertVertex("Actor" + i, true);
+		test.insertVertex("Movie" + i);
+	    }
+	    for (int i = 0; i < 110; i++) {		//sparse, so there are long paths and several components
+		int a = random.nextInt(80);
+		int m = random.nextInt(80);
+		test.insertEdge("Actor" + a, "Movie" + m, 0);
+		test.insertEdge("Movie" + m, "Actor" + a, 1);
+	    }
+	    Diameter d = test.diameter();
+	    CSRGraph g = test.freeze();
+	    Components component = test.components();
+	    int[] dist = new int[g.size()];
+	    int[] parent = new int[g.size()];
+	    int longest = 0;
+	    for (int s = test.nextActor(0); s >= 0; s = test.nextActor(s + 1)) {
+		if (component.together(s, d.from())) {
+		    g.shortestPaths(s, dist, parent);
+		    for (int t = test.nextActor(0); t >= 0; t = test.nextActor(t + 1)) {
+			if (dist[t] != CSRGraph.UNREACHED) {
+			    longest = Math.max(longest, dist[t]);
+			}
+		    }
+		}
+	    }
+	    assertEquals("Diameter of graph " + seed, longest, d.length());
+	    g.shortestPaths(d.from(), dist, parent);
+	    assertEquals(dist[d.to()], d.length());
+	    assertTrue(test.longest(d).endsWith("(" + d.length() + ")"));
+	}
+	MyGraph test = new MyGraph();
+	for (int i = 0; i < 6; i++) {
+	    test.insertVertex("" + i);
+	}
+	for (int i = 0; i < 4; i++) {		//a one way chain 0 -> 1 -> 2 -> 3 -> 4, so every vertex is searched
+	    test.insertEdge("" + i, "" + (i + 1), 2);
+	}
+	assertEquals(test.diameter().length(), 8);
+	assertEquals(test.diameter().size(), 5);
+	assertEquals(test.diameter().searches(), 5);
+	test.insertEdge("4", "3", 2);
+	test.insertEdge("3", "2", 2);
+	test.insertEdge("2", "1", 2);
+	test.insertEdge("1", "0", 2);
+	assertEquals("Undirected graphs are bounded too", test.diameter().length(), 8);
+    }
+
+    @Test
+    public void testSampledCenters() {
+	MyGraph test = new MyGraph();
+	Random random = new Random(18);
+	for (int i = 0; i < 300; i++) {
+	    test.insertVertex("Actor" + i, true);
+	    test.insertVertex("Movie" + i);
+	}
+	for (int i = 0; i < 900; i++) {
+	    int a = random.nextInt(300);
+	    int m = random.nextInt(300);
+	    test.insertEdge("Actor" + a, "Movie" + m, 0);
+	    test.insertEdge("Movie" + m, "Actor" + a, 1);
+	}
+	ShortestPathTree tree = test.dijkstra(test.getVertex("Actor0"));
+	test.loadConnected(tree);
+	test.topcenter(5, tree, 1);
+	MyGraph.Entry[] top = test.sampledCenters(5, 100, 0, new Random(1));
+	assertEquals(test.sampled, 100);
+	assertTrue("Only the best estimates should be searched exactly", test.refined <= 80 && test.refined <= test.possible);
+	for (int i = 0; i < 5; i++) {
+	    assertEquals("Refined centers should match the exact ones", test.avgs.get(i).avg, top[i].avg);
+	}
+	top = test.sampledCenters(5, 0, 0, new Random(2));
+	assertEquals("A budget of 0 should still take one batch", test.sampled, 64);
+	top = test.sampledCenters(5, 1000, 0, new Random(3));
+	assertEquals("Sampling every actor gives exact averages", test.bound, 0, 0);
+	assertEquals(test.refined, 5);
+	for (int i = 0; i < 5; i++) {
+	    assertEquals(test.avgs.get(i).avg, top[i].avg);
+	}
+	assertEquals("Asking for no centers should find none", test.sampledCenters(0, 10, 0, new Random(4)).length, 0);
+	assertEquals("and leave nothing from the last run", test.sampled, 0);
+	test.topcenter(0, tree, 10, 0);
+	test.insertEdge("Actor1", "Actor2", 1);		//one way, so a pivot's eccentricity no longer bounds distances from it
+	test.sampledCenters(5, 10, 0, new Random(5));
+	assertTrue("No bound should be claimed", Float.isInfinite(test.bound));
+	assertEquals("and no actor ruled out", test.possible, test.connected.size());
+    }
+
+    @Test
+    public void testTopCenterWorkers() {
+	MyGraph test = new MyGraph();
+	Random random = new Random(4);
+	for (int i = 0; i < 200; i++) {
+	    test.insertVertex("Actor" + i, true);
+	    test.insertVertex("Movie" + i);
+	}
+	for (int i = 0; i < 500; i++) {
+	    int a = random.nextInt(200);
+	    int m = random.nextInt(200);
+	    test.insertEdge("Actor" + a, "Movie" + m, 0);
+	    test.insertEdge("Movie" + m, "Actor" + a, 1);
+	}
+	ShortestPathTree tree = test.dijkstra(test.getVertex("Actor0"));
+	test.loadConnected(tree);
+	MyGraph.Entry[] one = test.topCenters(20, 1);
+	int[] threads = {2, 4, 0, -3};
+	for (int t = 0; t < threads.length; t++) {
+	    MyGraph.Entry[] many = test.topCenters(20, threads[t]);
+	    assertEquals(one.length, many.length);
+	    for (int i = 0; i < one.length; i++) {
+		assertSame("Every thread count should give the same centers in the same order", one[i].v, many[i].v);
+		assertEquals(one[i].avg, many[i].avg);
+	    }
+	}
+	test.topcenter(2, tree, 0);
+	assertEquals("Fewer than 1 thread should run on 1", test.avgs.size(), 2);
+    }
+
+    @Test
+    public void testTopCloseness() {
+	MyGraph test = new MyGraph();
+	Random random = new Random(19);
+	for (int i = 0; i < 300; i++) {
+	    test.insertVertex("Actor" + i, true);
+	    test.insertVertex("Movie" + i);
+	}
+	for (int i = 0; i < 900; i++) {
+	    int a = random.nextInt(300);
+	    int m = random.nextInt(300);
+	    test.insertEdge("Actor" + a, "Movie" + m, 0);
+	    test.insertEdge("Movie" + m, "Actor" + a, 1);
+	}
+	ShortestPathTree tree = test.dijkstra(test.getVertex("Actor0"));
+	test.loadConnected(tree);
+	MyGraph.Entry[] all = new MyGraph.Entry[test.connected.size()];
+	for (int i = 0; i < all.length; i++) {
+	    MyGraph.Vertex v = test.connected.get(i);
+	    all[i] = test.new Entry(v, test.avgDist(test.dijkstra(v)));
+	}
+	Arrays.sort(all);
+	MyGraph.Entry[] top = test.topCenters(10, 1);
+	assertEquals(top.length, 10);
+	for (int i = 0; i < 10; i++) {
+	    assertEquals("Top centers should match a search from every actor", all[i].v, top[i].v);
+	    assertEquals(all[i].avg, top[i].avg);
+	}
+	MyGraph.Entry[] shared = test.topCenters(10, 3);
+	for (int i = 0; i < 10; i++) {
+	    assertEquals("Workers should not change the result", top[i].v, shared[i].v);
+	}
+	CSRGraph g = test.freeze();
+	int[] ids = new int[test.connected.size()];
+	for (int i = 0; i < ids.length; i++) {
+	    ids[i] = test.connected.get(i).id;
+	}
+	TopCloseness search = new TopCloseness(g, ids, 10, true);
+	search.work();
+	assertTrue("Most searches should be cut short", search.cut.get() > ids.length / 2);
+	TopCloseness full = new TopCloseness(g, ids, 10, false);
+	full.work();
+	assertEquals(full.cut.get(), 0);
+	assertTrue(Arrays.equals(search.positions(), full.positions()));
+	assertEquals(test.topCenters(1000, 1).length, ids.length);
+    }
+
+    @Test
+    public void testMultiSourceBFS() {
+	String[][] credits = {{"Kevin", "Movie1"}, {"Carl", "Movie1"}, {"Carl", "Movie2"}, {"Stacy", "Movie2"},
+		{"Stacy", "Movie3"}, {"Dan", "Movie3"}, {"Dan", "Movie4"}, {"Ed", "Movie4"}, {"Kevin", "Movie4"}, {"Flo", "Movie5"}};
+	MyGraph test = creditGraph(credits);
+	final CSRGraph g = test.freeze();
+	final int[] sources = new int[100];		//more than 64, so two words of lanes are used
+	for (int i = 0; i < sources.length; i++) {
+	    sources[i] = i % g.size();
+	}
+	final int[][] found = new int[sources.length][g.size()];
+	for (int i = 0; i < sources.length; i++) {
+	    Arrays.fill(found[i], CSRGraph.UNREACHED);
+	}
+	MultiSourceBFS bfs = new MultiSourceBFS(g, 2);
+	bfs.run(sources, 0, sources.length, new MultiSourceBFS.Visitor() {
+	    public void reached(int v, int word, long lanes, int dist) {
+		for (int k = 0; k < 64; k++) {
+		    if ((lanes & (1L << k)) != 0) {
+			assertEquals("Each source should reach a vertex only once", found[64 * word + k][v], CSRGraph.UNREACHED);
+			found[64 * word + k][v] = dist;
+		    }
+		}
+	    }
+	});
+	int[] dist = new int[g.size()];
+	int[] parent = new int[g.size()];
+	for (int i = 0; i < sources.length; i++) {
+	    g.zeroOneBFS(sources[i], dist, parent);
+	    for (int v = 0; v < g.size(); v++) {
+		assertEquals("MS-BFS distances should match a single BFS", dist[v], found[i][v]);
+	    }
+	}
+	final int[][] again = new int[40][g.size()];
+	for (int i = 0; i < again.length; i++) {
+	    Arrays.fill(again[i], CSRGraph.UNREACHED);
+	}
+	bfs.run(sources, 50, again.length, new MultiSourceBFS.Visitor() {
+	    public void reached(int v, int word, long lanes, int dist) {
+		for (int k = 0; k < 64; k++) {
+		    if ((lanes & (1L << k)) != 0) {
+			again[64 * word + k][v] = dist;
+		    }
+		}
+	    }
+	});
+	for (int i = 0; i < again.length; i++) {
+	    assertTrue("A second run should not see the lanes of the first", Arrays.equals(again[i], found[50 + i]));
+	}
+    }
+
+    @Test
+    public void testSnapshot() throws IOException {
+	File source = File.createTempFile("credits", ".txt");
+	File snapshot = GraphSnapshot.fileFor(source.getPath());
+	source.deleteOnExit();
+	snapshot.deleteOnExit();
+	PrintWriter out = new PrintWriter(source, "UTF-8");
+	out.println("Kevin|Movie1");
+	out.println("Carl|Movie1");
+	out.println("Carl|Movie2");
+	out.println("Zoe|Movie2");
+	out.close();
+	MyGraph text = new MyGraph();
+	text.readIn(source.getPath());
+	assertTrue("Reading a text file should save a snapshot", GraphSnapshot.isCurrent(snapshot, source));
+	MyGraph mapped = new MyGraph();
+	mapped.readIn(source.getPath());
+	assertEquals("Same number of vertices", text.vertices(), mapped.vertices());
+	assertEquals("Same number of edges", text.edges(), mapped.edges());
+	assertEquals("Same number of actors", text.actors(), mapped.actors());
+	assertEquals(text.movies("Carl"), mapped.movies("Carl"));
+	assertEquals(text.findBetween("Zoe", "Kevin"), mapped.findBetween("Zoe", "Kevin"));
+	mapped.insertEdge("Kevin", "Movie2", 0);
+	assertTrue("Snapshot graph should thaw when changed", mapped.areAdjacent("Kevin", "Movie2"));
+	mapped.removeVertex("Zoe");
+	GraphSnapshot.write(mapped, source, snapshot);
+	assertFalse("The snapshot should be renamed into place", new File(snapshot.getPath() + ".tmp").exists());
+	MyGraph removed = new MyGraph();
+	GraphSnapshot.read(removed, snapshot);
+	assertEquals("Removed vertices should stay removed", null, removed.getVertex("Zoe"));
+	assertEquals(mapped.vertices(), removed.vertices());
+	removed.insertVertex("Zoe", true);
+	assertEquals("Zoe", removed.getVertex("Zoe").data());
+    }
+
+    @Test
+    public void testNamePool() {
+	NamePool pool = new NamePool(2);
+	assertEquals(0, pool.add("Kevin Bacon (I)"));
+	assertEquals(1, pool.add("Zo\u00eb"));
+	assertEquals("Adding a name again should give the same id", 0, pool.add("Kevin Bacon (I)"));
+	for (int i = 0; i < 1000; i++) {
+	    pool.add("Actor " + i);
+	}
+	assertEquals(1002, pool.size());
+	assertEquals("Names should survive the table growing", 1, pool.find("Zo\u00eb"));
+	assertEquals("Zo\u00eb", pool.name(1));
+	assertEquals("Actor 999", pool.name(pool.find("Actor 999")));
+	assertEquals(-1, pool.find("Kevin Bacon"));
+	byte[] line = "x|Actor 7|y".getBytes();
+	assertEquals("Bytes and Strings should find the same name", pool.find("Actor 7"), pool.find(line, 2, 7));
+    }
+
+    @Test
+    public void testCreditLoader() throws IOException {
+	String[] lines = {"Kevin|Movie1", "Carl|Movie1", "Carl|Movie2", "Kevin|Movie1", "Stacy|Movie2", "Movie1|Movie3"};
+	File source = File.createTempFile("credits", ".txt");
+	source.deleteOnExit();
+	PrintWriter out = new PrintWriter(source, "UTF-8");
+	for (int i = 0; i < lines.length; i++) {
+	    out.print(lines[i] + "\r\n");
+	}
+	out.print("not a credit\n\n");
+	out.close();
+	MyGraph inserted = new MyGraph();
+	for (int i = 0; i < lines.length; i++) {
+	    String[] array = lines[i].split("\\|");
+	    inserted.insertVertex(array[0], true);
+	    inserted.insertVertex(array[1]);
+	    inserted.insertEdge(array[0], array[1], 0);
+	    inserted.insertEdge(array[1], array[0], 1);
+	}
+	MyGraph loaded = new MyGraph();
+	assertEquals("Malformed lines should be skipped", new CreditLoader(3).load(loaded, source), lines.length);
+	assertEquals("Same number of vertices", inserted.vertices(), loaded.vertices());
+	assertEquals("Duplicate credits should only make one edge", inserted.edges(), loaded.edges());
+	assertEquals("Same number of actors", inserted.actors(), loaded.actors());
+	assertEquals(inserted.movies("Movie1"), loaded.movies("Movie1"));
+	assertEquals(inserted.findBetween("Stacy", "Kevin"), loaded.findBetween("Stacy", "Kevin"));
+	MyGraph streamed = new MyGraph();
+	InputStream in = new FileInputStream(source);
+	assertEquals("Stream should read the same lines", new CreditLoader(1).load(streamed, in, -1), lines.length);
+	in.close();
+	assertEquals(inserted.edges(), streamed.edges());
+	assertEquals(inserted.movies("Movie2"), streamed.movies("Movie2"));
+    }
+
+    @Test
+    public void testCreditGenerator() throws IOException {
+	StringWriter first = new StringWriter();
+	StringWriter second = new StringWriter();
+	assertEquals(CreditGenerator.write(first, 5000, 7, 3), 5006);
+	CreditGenerator.write(second, 5000, 7, 3);
+	assertEquals("The same seed should write the same file", first.toString(), second.toString());
+	StringWriter other = new StringWriter();
+	CreditGenerator.write(other, 5000, 8, 3);
+	assertFalse(first.toString().equals(other.toString()));
+	String[] lines = first.toString().split("\n");
+	assertEquals(lines.length, 5006);
+	for (int i = 0; i < lines.length; i++) {
+	    assertEquals("Every line should be name|movie", lines[i].split("\\|").length, 2);
+	}
+	File source = File.createTempFile("credits", ".txt");
+	source.deleteOnExit();
+	GraphSnapshot.fileFor(source.getPath()).deleteOnExit();
+	CreditGenerator.write(source, 5000, 7, 3);
+	MyGraph test = new MyGraph();
+	test.readIn(source.getPath());
+	MyGraph.Vertex center = test.getVertex(CreditGenerator.CENTER);
+	assertTrue("The center should be in the most movies", test.degree(center) > 10 * test.degree(test.getVertex("Actor 100")));
+	assertEquals("Each island is a component of its own", test.components().count(), 4);
+	assertEquals(test.findBetween("Island Actor 1", CreditGenerator.CENTER), "Island Actor 1 is unreachable");
+	assertEquals(test.findBetween("Island Actor 1", "Island Actor 0"), "Island Actor 1 -> Island Movie 0 -> Island Actor 0 (1)");
+    }
+
+    @Test
+    public void testGraphStats() throws IOException {
+	File source = File.createTempFile("credits", ".txt");
+	source.deleteOnExit();
+	GraphSnapshot.fileFor(source.getPath()).deleteOnExit();
+	PrunedLabelIndex.fileFor(source.getPath()).deleteOnExit();
+	CreditGenerator.write(source, 2000, 7, 1);
+	MyGraph test = new MyGraph();
+	test.readIn(source.getPath());
+	GraphStats stats = test.stats();
+	assertEquals(stats.getLinesRead(), 2002);
+	assertTrue(stats.getLinesPerSecond() > 0);
+	MyGraph.Vertex center = test.getVertex(CreditGenerator.CENTER);
+	ShortestPathTree tree = test.dijkstra(center);
+	test.dijkstra(center);
+	assertEquals(stats.getSearches(), 1);
+	assertEquals(stats.getSearchCacheMisses(), 1);
+	assertEquals(stats.getSearchCacheHits(), 1);
+	int reached = 0;
+	for (int id = 0; id < test.freeze().size(); id++) {
+	    if (tree.dist(id) != CSRGraph.UNREACHED) {
+		reached++;
+	    }
+	}
+	assertEquals("Every reached vertex is settled once", stats.getVerticesSettled(), reached);
+	assertTrue(stats.getQueuePushes() >= reached);
+	assertEquals("Each push is either settled or stale", stats.getQueuePushes(), stats.getVerticesSettled() + stats.getStalePops());
+	assertEquals(stats.getLatencies().length, 1);
+	assertTrue(stats.report().contains("dijkstra"));
+	stats.time("find", 1500000);
+	stats.time("find", 2500000);
+	GraphStats.Histogram find = stats.latencies.get("find");
+	assertTrue("Percentiles round up, but never past the longest", find.percentile(0.5) >= 1500000 && find.percentile(0.99) == 2500000);
+	stats.reset();
+	assertEquals(stats.getSearches(), 0);
+	assertEquals(stats.getLatencies().length, 0);
+	test.loadConnected(tree);
+	test.topCenters(3, 1);
+	assertTrue("Exact centers count their searches", stats.getSearches() > 0 && stats.getVerticesSettled() > 0);
+	stats.reset();
+	test.sampledCenters(3, 64, 0, new Random(1));
+	assertTrue("The batch of pivots and the refining searches are counted", stats.getSearches() >= 2);
+	assertTrue(stats.getEdgesRelaxed() > 0);
+	stats.reset();
+	test.buildLabels(false);
+	assertEquals("Two pruned searches for every vertex with edges", stats.getSearches() % 2, 0);
+	assertTrue(stats.getSearches() > 0);
+    }
+
+    @Test
+    public void testQueryServer() throws Exception {
+	File source = File.createTempFile("credits", ".txt");
+	source.deleteOnExit();
+	GraphSnapshot.fileFor(source.getPath()).deleteOnExit();
+	CreditGenerator.write(source, 3000, 7, 1);
+	final MyGraph test = new MyGraph();
+	test.readIn(source.getPath());
+	final QueryServer server = new QueryServer(test, test.getVertex(CreditGenerator.CENTER), 0);
+	server.start();
+	try {
+	    List<Callable<String>> queries = new ArrayList<Callable<String>>();
+	    for (int i = 0; i < 200; i++) {
+		final String name = i % 10 == 9 ? "Island Actor 0" : "Actor " + (i * 7);
+		final String center = "Actor " + (i % 5);
+		queries.add(new Callable<String>() {
+		    public String call() throws IOException {
+			String found = get(server.port(), "/find?name=" + URLEncoder.encode(name, "UTF-8") + "&center="
+				+ URLEncoder.encode(center, "UTF-8"));
+			String expected = test.find(test.dijkstra(test.getVertex(center)), name);
+			String distance = get(server.port(), "/distance?name=" + URLEncoder.encode(name, "UTF-8") + "&center="
+				+ URLEncoder.encode(center, "UTF-8"));
+			int d = test.baconNumber(name, center);
+			if (!found.equals(expected + "\n")) {
+			    return found + " should be " + expected;
+			}
+			if (!distance.equals((d == CSRGraph.UNREACHED ? name + " is unreachable" : "" + d) + "\n")) {
+			    return distance + " should be " + d;
+			}
+			return null;
+		    }
+		});
+	    }
+	    ExecutorService clients = Executors.newFixedThreadPool(8);
+	    List<Future<String>> answers = clients.invokeAll(queries);
+	    clients.shutdown();
+	    for (int i = 0; i < answers.size(); i++) {
+		assertEquals("Concurrent queries should match the same queries run alone", answers.get(i).get(), null);
+	    }
+	    assertEquals(get(server.port(), "/movies?name=Island+Actor+1"), test.movies("Island Actor 1") + "\n");
+	    assertTrue(get(server.port(), "/table").startsWith("Number 0   :          1\n"));
+	    assertEquals(status(server.port(), "/find?name=Actor+1&center=Nobody"), 404);
+	    assertEquals(status(server.port(), "/distance"), 400);
+	    assertEquals(status(server.port(), "/recenter"), 404);
+	    assertEquals(test.stats().latencies.get("/find").count.sum(), 200);
+	} finally {
+	    server.stop();
+	}
+    }
+
+    @Test
+    public void testConcurrentAnswers() throws Exception {
+	File source = File.createTempFile("credits", ".txt");
+	source.deleteOnExit();
+	GraphSnapshot.fileFor(source.getPath()).deleteOnExit();
+	CreditGenerator.write(source, 3000, 11, 1);
+	MyGraph alone = new MyGraph();
+	alone.readIn(source.getPath());
+	final MyGraph shared = new MyGraph();
+	shared.readIn(source.getPath());
+	final QueryServer server = new QueryServer(shared, shared.getVertex(CreditGenerator.CENTER), 0);
+	final String[] commands = {"find", "distance", "movies", "table"};
+	final List<HashMap<String, String>> params = new ArrayList<HashMap<String, String>>();
+	List<String> expected = new ArrayList<String>();
+	QueryServer reference = new QueryServer(alone, alone.getVertex(CreditGenerator.CENTER), 0);
+	for (int i = 0; i < 400; i++) {
+	    HashMap<String, String> p = new HashMap<String, String>();
+	    p.put("name", i % 13 == 12 ? "Island Actor " + (i % 3) : "Actor " + (i * 17 % 3000));
+	    p.put("center", "Actor " + (i % 7));
+	    params.add(p);
+	    expected.add(reference.answer(commands[i % commands.length], p));
+	}
+	int[] parent = shared.components().parent.clone();
+	List<Callable<String>> queries = new ArrayList<Callable<String>>();
+	for (int i = 0; i < params.size(); i++) {
+	    final int q = i;
+	    queries.add(new Callable<String>() {
+		public String call() {
+		    return server.answer(commands[q % commands.length], params.get(q));
+		}
+	    });
+	}
+	ExecutorService clients = Executors.newFixedThreadPool(16);
+	List<Future<String>> answers = clients.invokeAll(queries);
+	clients.shutdown();
+	for (int i = 0; i < answers.size(); i++) {
+	    assertEquals("Answers from many threads should match the same answers made alone", answers.get(i).get(), expected.get(i));
+	}
+	assertTrue("Queries should not write to the components", Arrays.equals(parent, shared.components().parent));
+	for (int i = 0; i < 50; i++) {
+	    MyGraph.Vertex v = shared.getVertex("Actor " + (i * 17 % 3000));
+	    if (v != null) {
+		assertSame("Every thread should get the same Vertex for an id", shared.vertex(v.id), v);
+	    }
+	}
+    }
+
+    private static String get(int port, String query) throws IOException {
+	HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + query).openConnection();
+	try (InputStream in = connection.getInputStream()) {
+	    return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+	}
+    }
+
+    private static int status(int port, String query) throws IOException {
+	HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + query).openConnection();
+	int status = connection.getResponseCode();
+	connection.disconnect();
+	return status;
+    }
+
+    //actor -> movie costs 0 and movie -> actor costs 1, as readIn builds them
+    private static MyGraph creditGraph(String[][] credits) {
+	MyGraph test = new MyGraph();
+	for (int i = 0; i < credits.length; i++) {
+	    test.insertVertex(credits[i][0], true);
+	    test.insertVertex(credits[i][1]);
+	    test.insertEdge(credits[i][0], credits[i][1], 0);
+	    test.insertEdge(credits[i][1], credits[i][0], 1);
+	}
+	return test;
+    }
 }
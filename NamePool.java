@@ -0,0 +1,212 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A dictionary that gives every distinct name a dense int id, in order of first appearance.
+ *
+ * The names are kept as UTF-8 bytes, one after another in a single byte array, with the start of each one in an int
+ * array, so a graph of millions of names holds a handful of arrays instead of millions of Strings. Names are looked
+ * up by hashing their bytes into an open addressing table of ids, and only decoded into Strings when they are shown.
+ *
+ * Looking names up does not change the pool, so any number of threads can call find and name at once,
+ * as long as none of them is adding.
+ */
+public class NamePool {
+	byte[] bytes;		//every name, one after another
+	int used;			//bytes in use
+	int[] starts;		//name with id i is bytes[starts[i]] ... bytes[starts[i + 1] - 1]
+	int[] hashes;		//hash of every name, so the table can grow without hashing them again
+	int[] table;		//id + 1 of the name in each slot, or 0 for an empty slot
+	int count;
+
+	/**
+	 * creates an empty pool.
+	 * @param expected - number of names expected, so the arrays start big enough
+	 */
+	public NamePool(int expected) {
+		int capacity = Math.max(16, expected);
+		this.bytes = new byte[capacity * 16];
+		this.used = 0;
+		this.starts = new int[capacity + 1];
+		this.hashes = new int[capacity];
+		this.table = new int[tableSize(capacity)];
+		this.count = 0;
+	}
+
+	/**
+	 * creates a pool from arrays saved by a GraphSnapshot, without hashing any names.
+	 * @param bytes - the names
+	 * @param starts - count + 1 starts of the names
+	 * @param hashes - hash of every name
+	 * @param table - index of the names
+	 * @param count - number of names
+	 */
+	NamePool(byte[] bytes, int[] starts, int[] hashes, int[] table, int count) {
+		this.bytes = bytes;
+		this.used = starts[count];
+		this.starts = starts;
+		this.hashes = hashes;
+		this.table = table;
+		this.count = count;
+	}
+
+	/**
+	 * @return - number of names in the pool
+	 */
+	public int size() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the id of a name, adding it if it is new.
+	 * @param name - name to add
+	 * @return - id of name
+	 */
+	public int add(String name) {
+		byte[] b = name.getBytes(StandardCharsets.UTF_8);
+		return add(b, 0, b.length);
+	}
+
+	/**
+	 * Returns the id of the name held as UTF-8 in b[off] ... b[off + len - 1], adding it if it is new.
+	 * @param b - bytes holding the name
+	 * @param off - start of the name in b
+	 * @param len - number of bytes in the name
+	 * @return - id of the name; a new name gets id size() - 1
+	 */
+	public int add(byte[] b, int off, int len) {
+		int hash = hash(b, off, len);
+		int slot = slot(b, off, len, hash);
+		if (this.table[slot] != 0) {
+			return this.table[slot] - 1;
+		}
+		if (this.used + len > this.bytes.length) {
+			this.bytes = Arrays.copyOf(this.bytes, Math.max(2 * this.bytes.length, this.used + len));
+		}
+		System.arraycopy(b, off, this.bytes, this.used, len);
+		this.used += len;
+		if (this.count == this.hashes.length) {
+			this.hashes = Arrays.copyOf(this.hashes, 2 * this.count);
+			this.starts = Arrays.copyOf(this.starts, 2 * this.count + 1);
+		}
+		int id = this.count++;
+		this.hashes[id] = hash;
+		this.starts[id + 1] = this.used;
+		this.table[slot] = id + 1;
+		if (this.count > this.table.length / 2) {
+			grow();
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the id of a name.
+	 * @param name - name to look up
+	 * @return - id of name, or -1 if it is not in the pool
+	 */
+	public int find(String name) {
+		byte[] b = name.getBytes(StandardCharsets.UTF_8);
+		return find(b, 0, b.length);
+	}
+
+	/**
+	 * Returns the id of the name held as UTF-8 in b[off] ... b[off + len - 1].
+	 * @return - id of the name, or -1 if it is not in the pool
+	 */
+	public int find(byte[] b, int off, int len) {
+		return this.table[slot(b, off, len, hash(b, off, len))] - 1;
+	}
+
+	/**
+	 * Decodes the name with the given id.
+	 * @param id - id of the name
+	 * @return - the name as a String
+	 */
+	public String name(int id) {
+		return new String(this.bytes, this.starts[id], this.starts[id + 1] - this.starts[id], StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return - start of the name with the given id in bytes
+	 */
+	public int start(int id) {
+		return this.starts[id];
+	}
+
+	/**
+	 * @return - number of bytes in the name with the given id
+	 */
+	public int length(int id) {
+		return this.starts[id + 1] - this.starts[id];
+	}
+
+	/**
+	 * Finds the slot of the table holding the name, or the empty slot where it would go.
+	 */
+	private int slot(byte[] b, int off, int len, int hash) {
+		int mask = this.table.length - 1;
+		int slot = hash & mask;
+		while (this.table[slot] != 0) {
+			int id = this.table[slot] - 1;
+			if (this.hashes[id] == hash && same(id, b, off, len)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * returns true if the name with the given id is exactly the bytes b[off] ... b[off + len - 1]
+	 */
+	private boolean same(int id, byte[] b, int off, int len) {
+		int start = this.starts[id];
+		if (this.starts[id + 1] - start != len) {
+			return false;
+		}
+		for (int i = 0; i < len; i++) {
+			if (this.bytes[start + i] != b[off + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * doubles the table, placing every id again by its saved hash
+	 */
+	private void grow() {
+		int[] bigger = new int[2 * this.table.length];
+		int mask = bigger.length - 1;
+		for (int id = 0; id < this.count; id++) {
+			int slot = this.hashes[id] & mask;
+			while (bigger[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			bigger[slot] = id + 1;
+		}
+		this.table = bigger;
+	}
+
+	/**
+	 * hashes the bytes of a name, spreading the high bits down as HashMap does
+	 */
+	static int hash(byte[] b, int off, int len) {
+		int h = 0;
+		for (int i = off; i < off + len; i++) {
+			h = 31 * h + b[i];
+		}
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * returns the smallest power of 2 table that keeps capacity names at most half full
+	 */
+	static int tableSize(int capacity) {
+		int size = 16;
+		while (size < 2 * capacity) {
+			size = size * 2;
+		}
+		return size;
+	}
+}
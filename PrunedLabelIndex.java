@@ -0,0 +1,433 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * An exact distance index for every pair of vertices of a frozen graph, built with pruned landmark labeling (PLL).
+ *
+ * Every vertex v gets an out label, a list of (hub, d(v, hub)) pairs, and an in label, a list of (hub, d(hub, v))
+ * pairs, chosen so that some shortest path from any s to any t passes through a hub in both the out label of s and
+ * the in label of t (a 2-hop cover). The distance from s to t is then the smallest d(s, hub) + d(hub, t) over the
+ * hubs the two labels share, found by merging two short lists sorted by hub.
+ *
+ * The labels are built by searching forwards and backwards from every vertex in turn, in order of degree, so the
+ * movies with the largest casts and the busiest actors become hubs first. A search stops at any vertex the labels
+ * built so far already give the right distance for, so later searches only touch a small part of the graph and most
+ * labels stay short.
+ *
+ * The finished labels are packed into CSR style arrays, and can be saved next to the text database so they are only
+ * built once for every database.
+ */
+public class PrunedLabelIndex {
+	static final int MAGIC = 0x504C4C31;		//"PLL1"
+	static final int VERSION = 1;
+	static final int HEADER = 40;
+	static final int WINDOW = 1 << 20;		//bytes moved between the file and the arrays at a time
+
+	final CSRGraph graph;
+	final int[] inOffsets;		//in label of v is inHubs[inOffsets[v]] ... inHubs[inOffsets[v + 1] - 1]
+	final int[] inHubs;			//rank of each hub, increasing along every label
+	final int[] inDists;
+	final int[] outOffsets;
+	final int[] outHubs;
+	final int[] outDists;
+
+	private PrunedLabelIndex(CSRGraph graph, int[] inOffsets, int[] inHubs, int[] inDists,
+			int[] outOffsets, int[] outHubs, int[] outDists) {
+		this.graph = graph;
+		this.inOffsets = inOffsets;
+		this.inHubs = inHubs;
+		this.inDists = inDists;
+		this.outOffsets = outOffsets;
+		this.outHubs = outHubs;
+		this.outDists = outDists;
+	}
+
+	/**
+	 * Builds the labels of g.
+	 * @param g - frozen graph, with no negative edges
+	 * @return - the index
+	 */
+	public static PrunedLabelIndex build(CSRGraph g) {
+		if (g.negative) {
+			throw new IndexOutOfBoundsException("Negative edges are not approved");
+		}
+		g.reverse();
+		int n = g.size();
+		//rank vertices by degree, highest first; vertices with no edges cannot be on any path, so they get no rank
+		long[] keys = new long[n];
+		int ranked = 0;
+		for (int v = 0; v < n; v++) {
+			int degree = g.degree(v) + g.inOffsets[v + 1] - g.inOffsets[v];
+			if (degree > 0) {
+				keys[ranked++] = ((long) (Integer.MAX_VALUE - degree) << 32) | v;
+			}
+		}
+		Arrays.sort(keys, 0, ranked);
+		Labels in = new Labels(n);
+		Labels out = new Labels(n);
+		int[] dist = new int[n];
+		Arrays.fill(dist, CSRGraph.UNREACHED);
+		int[] hub = new int[ranked];		//distance to or from the current vertex of each hub of its label
+		Arrays.fill(hub, CSRGraph.UNREACHED);
+		int[] touched = new int[n];
+		CSRGraph.LongHeap heap = new CSRGraph.LongHeap();
+		for (int r = 0; r < ranked; r++) {
+			int v = (int) keys[r];
+			search(r, v, g.offsets, g.targets, g.costs, out, in, dist, hub, touched, heap, g.stats);
+			search(r, v, g.inOffsets, g.inSources, g.inCosts, in, out, dist, hub, touched, heap, g.stats);
+		}
+		return new PrunedLabelIndex(g, in.offsets(), in.hubs(), in.dists(), out.offsets(), out.hubs(), out.dists());
+	}
+
+	/**
+	 * Runs one pruned Dijkstra search from the vertex v with the given rank, over the edges in offsets, targets and
+	 * costs. Searching forwards, every vertex w reached gets (rank, d(v, w)) added to its in label unless the labels
+	 * built so far already give a distance that short, in which case the search does not go past w. Searching
+	 * backwards the same is done with out labels.
+	 * @param other - the opposite labels, whose entries for v are checked against own
+	 * @param own - labels to add to: in labels when searching forwards
+	 * @param stats - stats to add the work of the search to, or null
+	 */
+	private static void search(int rank, int v, int[] offsets, int[] targets, int[] costs, Labels other, Labels own,
+			int[] dist, int[] hub, int[] touched, CSRGraph.LongHeap heap, GraphStats stats) {
+		for (int i = 0; i < other.count[v]; i++) {
+			long entry = other.entries[v][i];
+			hub[(int) (entry >>> 32)] = (int) entry;
+		}
+		int count = 0;
+		dist[v] = 0;
+		touched[count++] = v;
+		heap.add(0, v);
+		int settled = 0;
+		long relaxed = 0;
+		long pushes = 1;
+		long stale = 0;
+		while (!heap.isEmpty()) {
+			long top = heap.poll();
+			int d = (int) (top >>> 32);
+			int w = (int) top;
+			if (d > dist[w]) {		//stale entry
+				stale++;
+				continue;
+			}
+			settled++;
+			if (covered(own, w, hub, d)) {
+				continue;
+			}
+			own.add(w, rank, d);
+			relaxed += offsets[w + 1] - offsets[w];
+			for (int i = offsets[w]; i < offsets[w + 1]; i++) {
+				int x = targets[i];
+				int dx = d + costs[i];
+				if (dx < dist[x]) {
+					if (dist[x] == CSRGraph.UNREACHED) {
+						touched[count++] = x;
+					}
+					dist[x] = dx;
+					heap.add(dx, x);
+					pushes++;
+				}
+			}
+		}
+		if (stats != null) {
+			stats.searched(settled, relaxed, pushes, stale);
+		}
+		for (int i = 0; i < count; i++) {
+			dist[touched[i]] = CSRGraph.UNREACHED;
+		}
+		for (int i = 0; i < other.count[v]; i++) {
+			hub[(int) (other.entries[v][i] >>> 32)] = CSRGraph.UNREACHED;
+		}
+	}
+
+	/**
+	 * returns true if the label of w in own shares a hub with the entries loaded into hub that gives a distance of
+	 * at most d
+	 */
+	private static boolean covered(Labels own, int w, int[] hub, int d) {
+		long[] entries = own.entries[w];
+		for (int i = 0; i < own.count[w]; i++) {
+			int h = hub[(int) (entries[i] >>> 32)];
+			if (h != CSRGraph.UNREACHED && h + (int) entries[i] <= d) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the exact distance from s to t by merging the out label of s with the in label of t.
+	 * @param s - id of the start
+	 * @param t - id of the end
+	 * @return - d(s, t), or CSRGraph.UNREACHED if t cannot be reached from s
+	 */
+	public int distance(int s, int t) {
+		if (s == t) {
+			return 0;
+		}
+		int best = CSRGraph.UNREACHED;
+		int i = this.outOffsets[s];
+		int j = this.inOffsets[t];
+		int iEnd = this.outOffsets[s + 1];
+		int jEnd = this.inOffsets[t + 1];
+		while (i < iEnd && j < jEnd) {
+			int a = this.outHubs[i];
+			int b = this.inHubs[j];
+			if (a == b) {
+				best = Math.min(best, this.outDists[i] + this.inDists[j]);
+				i++;
+				j++;
+			} else if (a < b) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return - number of (hub, distance) entries in all the labels
+	 */
+	public long entries() {
+		return (long) this.inHubs.length + this.outHubs.length;
+	}
+
+	/**
+	 * Returns the label file that goes with a text database.
+	 * @param source - path of the text database
+	 * @return - file next to source, with .pll appended to its name
+	 */
+	public static File fileFor(String source) {
+		return new File(source + ".pll");
+	}
+
+	/**
+	 * Returns true if file exists and holds labels written for source as it is now.
+	 * @param file - label file to check
+	 * @param source - text database the labels should have been built from
+	 * @return - true if the labels can be read instead of built
+	 */
+	public static boolean isCurrent(File file, File source) {
+		if (!file.isFile() || !source.isFile() || file.length() < HEADER) {
+			return false;
+		}
+		try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+			return in.readInt() == MAGIC && in.readInt() == VERSION
+					&& in.readLong() == source.length() && in.readLong() == source.lastModified();
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Saves the labels to file. They are written to a .tmp file next to it and moved over file once they are on disk,
+	 * so a build cut short, or a process that exits while the labels thread is still writing, never leaves a file
+	 * that isCurrent accepts but read cannot load.
+	 * @param source - text database the graph was read from
+	 * @param file - file to write
+	 * @throws IOException - if the file cannot be written
+	 */
+	public void write(File source, File file) throws IOException {
+		write(source, file, WINDOW);
+	}
+
+	/**
+	 * Saves the labels to file through a window of the given size.
+	 * @param window - bytes written at a time, at least HEADER
+	 */
+	void write(File source, File file, int window) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		try {
+			write(source.length(), source.lastModified(), temp, window);
+			try {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Writes the labels to file, for a text database of the given length and modification time. The arrays go out
+	 * through one window of bytes at a time, so the file can be larger than a single mapping allows.
+	 */
+	private void write(long length, long modified, File file, int window) throws IOException {
+		file.delete();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+			ByteBuffer out = ByteBuffer.allocateDirect(window);
+			out.putInt(MAGIC).putInt(VERSION).putLong(length).putLong(modified);
+			out.putInt(this.graph.size()).putInt(this.graph.edges()).putInt(this.inHubs.length).putInt(this.outHubs.length);
+			put(channel, out, this.inOffsets);
+			put(channel, out, this.inHubs);
+			put(channel, out, this.inDists);
+			put(channel, out, this.outOffsets);
+			put(channel, out, this.outHubs);
+			put(channel, out, this.outDists);
+			flush(channel, out);
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * copies a into the window, writing the window to the channel every time it fills
+	 */
+	private static void put(FileChannel channel, ByteBuffer out, int[] a) throws IOException {
+		int i = 0;
+		while (i < a.length) {
+			if (out.remaining() < 4) {
+				flush(channel, out);
+			}
+			int count = Math.min(a.length - i, out.remaining() / 4);
+			out.asIntBuffer().put(a, i, count);
+			out.position(out.position() + 4 * count);
+			i += count;
+		}
+	}
+
+	/**
+	 * writes everything in the window to the channel, and empties it
+	 */
+	private static void flush(FileChannel channel, ByteBuffer out) throws IOException {
+		out.flip();
+		while (out.hasRemaining()) {
+			channel.write(out);
+		}
+		out.clear();
+	}
+
+	/**
+	 * reads from the channel until the window holds at least bytes unread bytes
+	 */
+	private static void fill(FileChannel channel, ByteBuffer in, int bytes) throws IOException {
+		while (in.remaining() < bytes) {
+			in.compact();
+			int read = channel.read(in);
+			in.flip();
+			if (read < 0) {
+				throw new IOException("Label file ends too soon");
+			}
+		}
+	}
+
+	/**
+	 * fills a from the channel, through the window
+	 */
+	private static void get(FileChannel channel, ByteBuffer in, int[] a) throws IOException {
+		int i = 0;
+		while (i < a.length) {
+			fill(channel, in, 4);
+			int count = Math.min(a.length - i, in.remaining() / 4);
+			in.asIntBuffer().get(a, i, count);
+			in.position(in.position() + 4 * count);
+			i += count;
+		}
+	}
+
+	/**
+	 * Reads labels saved by write.
+	 * @param file - file to read
+	 * @param g - the graph the labels were built for
+	 * @return - the index
+	 * @throws IOException - if the file cannot be read, or does not hold labels for a graph of the same size as g
+	 */
+	public static PrunedLabelIndex read(File file, CSRGraph g) throws IOException {
+		return read(file, g, WINDOW);
+	}
+
+	/**
+	 * Reads labels saved by write through a window of the given size.
+	 * @param window - bytes read at a time, at least HEADER
+	 */
+	static PrunedLabelIndex read(File file, CSRGraph g, int window) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			ByteBuffer in = ByteBuffer.allocateDirect(window);
+			in.limit(0);
+			fill(channel, in, HEADER);
+			if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+				throw new IOException("Not a label file: " + file);
+			}
+			in.getLong();
+			in.getLong();
+			if (in.getInt() != g.size() || in.getInt() != g.edges()) {
+				throw new IOException("Labels in " + file + " are for a different graph");
+			}
+			int inEntries = in.getInt();
+			int outEntries = in.getInt();
+			int[] inOffsets = new int[g.size() + 1];
+			int[] inHubs = new int[inEntries];
+			int[] inDists = new int[inEntries];
+			int[] outOffsets = new int[g.size() + 1];
+			int[] outHubs = new int[outEntries];
+			int[] outDists = new int[outEntries];
+			get(channel, in, inOffsets);
+			get(channel, in, inHubs);
+			get(channel, in, inDists);
+			get(channel, in, outOffsets);
+			get(channel, in, outHubs);
+			get(channel, in, outDists);
+			return new PrunedLabelIndex(g, inOffsets, inHubs, inDists, outOffsets, outHubs, outDists);
+		}
+	}
+
+	/**
+	 * The labels of every vertex while they are being built, one growable array of (hub << 32 | distance) per vertex.
+	 */
+	static class Labels {
+		final long[][] entries;
+		final int[] count;
+
+		Labels(int n) {
+			this.entries = new long[n][];
+			this.count = new int[n];
+		}
+
+		void add(int v, int hub, int dist) {
+			if (this.entries[v] == null) {
+				this.entries[v] = new long[4];
+			} else if (this.count[v] == this.entries[v].length) {
+				this.entries[v] = Arrays.copyOf(this.entries[v], 2 * this.count[v]);
+			}
+			this.entries[v][this.count[v]++] = ((long) hub << 32) | dist;
+		}
+
+		int[] offsets() {
+			int[] offsets = new int[this.count.length + 1];
+			for (int v = 0; v < this.count.length; v++) {
+				offsets[v + 1] = offsets[v] + this.count[v];
+			}
+			return offsets;
+		}
+
+		int[] hubs() {
+			int[] hubs = new int[offsets()[this.count.length]];
+			int j = 0;
+			for (int v = 0; v < this.count.length; v++) {
+				for (int i = 0; i < this.count[v]; i++) {
+					hubs[j++] = (int) (this.entries[v][i] >>> 32);
+				}
+			}
+			return hubs;
+		}
+
+		int[] dists() {
+			int[] dists = new int[offsets()[this.count.length]];
+			int j = 0;
+			for (int v = 0; v < this.count.length; v++) {
+				for (int i = 0; i < this.count[v]; i++) {
+					dists[j++] = (int) this.entries[v][i];
+				}
+			}
+			return dists;
+		}
+	}
+}
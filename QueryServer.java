@@ -0,0 +1,268 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+
+/**
+ * Serves queries against one graph over HTTP on the loopback interface, so any number of users can ask at once
+ * instead of taking turns at the BaconNumber prompt. The graph is read in once and frozen, and its components found,
+ * before the first request. After that queries only read what they share: every search keeps its distances in a
+ * SearchContext of its own, Components answers without compressing its forest, the SearchCache and GraphStats are
+ * safe to share, and the one thing a query writes, the Vertex made the first time an id is asked for, is stored with
+ * a compare and set so every thread gets the same one. So requests take no locks of their own, and throughput grows
+ * with the cores.
+ *
+ * Every request runs on a thread of its own: a virtual thread where the JVM has them, and a thread from a cached
+ * pool where it does not. Answers are plain text, in the same formats as the BaconNumber commands.
+ *
+ *   GET /find?name=(name)[&center=(name)]       path from name to the center, from a full search of the center
+ *   GET /distance?name=(name)[&center=(name)]   bacon number from the center to name, from a bidirectional search
+ *   GET /movies?name=(name)                     every movie name was in
+ *   GET /table[?center=(name)]                  counts of the bacon numbers from the center
+ *   GET /stats                                  GraphStats of the searches so far
+ *
+ * The center is the server's center unless one is given. Unknown centers and commands are answered with 404, and
+ * requests missing a name with 400.
+ *
+ * Usage: java QueryServer (database) [port] [center]
+ */
+public class QueryServer {
+	/** port used when none is given */
+	public static final int DEFAULT_PORT = 8080;
+
+	final MyGraph graph;
+	final MyGraph.Vertex center;
+	final HttpServer server;
+	final ExecutorService requests;
+
+	static {
+		//answers are small, so without this each one waits about 40ms for Nagle's algorithm and a delayed ACK
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	/**
+	 * @param args - database to read, and optionally the port and the center
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: java QueryServer <database> [port] [center]");
+			return;
+		}
+		MyGraph graph = new MyGraph();
+		graph.readIn(args[0]);
+		System.out.println();
+		String center = args.length > 2 ? args[2] : "Kevin Bacon (I)";
+		MyGraph.Vertex c = graph.getVertex(center);
+		if (c == null) {
+			System.out.println("Vertex \"" + center + "\" is not in the graph.");
+			return;
+		}
+		try {
+			graph.stats().register();
+		} catch (JMException e) {
+			System.out.println("Stats could not be registered with JMX: " + e.getMessage());
+		}
+		try {
+			int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+			QueryServer server = new QueryServer(graph, c, port);
+			server.start();
+			System.out.println("Serving " + graph.vertices() + " vertices from " + c + " on http://localhost:" + server.port() + "/");
+		} catch (NumberFormatException e) {
+			System.out.println("Port must be a number: " + args[1]);
+		} catch (IOException e) {
+			System.out.println("Server could not be started: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Makes a server for graph, ready for requests once start is called. The graph is frozen, its components found
+	 * and the center searched first, so no request has to change it.
+	 * @param graph - graph to answer queries about. It must not be changed while the server runs.
+	 * @param center - default center of find, distance and table
+	 * @param port - port to listen on, or 0 for any free port
+	 * @throws IOException - if the port cannot be bound
+	 */
+	public QueryServer(MyGraph graph, MyGraph.Vertex center, int port) throws IOException {
+		this.graph = graph;
+		this.center = center;
+		graph.freeze();
+		graph.components();
+		graph.dijkstra(center);
+		this.requests = threadPerRequest();
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.server.createContext("/", new Handler());
+		this.server.setExecutor(this.requests);
+	}
+
+	/**
+	 * Starts answering requests, on threads of the server's own.
+	 */
+	public void start() {
+		this.server.start();
+	}
+
+	/**
+	 * Stops answering requests, giving the ones already running up to a second to finish.
+	 */
+	public void stop() {
+		this.server.stop(1);
+		this.requests.shutdown();
+		try {
+			this.requests.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return - port the server is listening on
+	 */
+	public int port() {
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Returns an executor that runs every task on a new virtual thread. Virtual threads are looked up by reflection,
+	 * so the server still builds and runs on a JVM without them, where a cached pool is used instead.
+	 * @return - an executor with a thread for every request
+	 */
+	static ExecutorService threadPerRequest() {
+		try {
+			Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) virtual.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * Answers one query. Safe to call from any number of threads at once.
+	 * @param command - find, distance, movies, table or stats
+	 * @param params - parameters of the query, by name
+	 * @return - the answer, as text
+	 * @throws IllegalArgumentException - if a parameter the query needs is missing
+	 * @throws NoSuchElementException - if the command or the center is not known
+	 */
+	String answer(String command, HashMap<String, String> params) {
+		if (command.equals("find")) {
+			return this.graph.find(this.graph.dijkstra(centerOf(params)), required(params, "name"));
+		} else if (command.equals("distance")) {
+			String name = required(params, "name");
+			MyGraph.Vertex c = centerOf(params);
+			int d = this.graph.baconNumber(name, c.data());
+			return d == CSRGraph.UNREACHED ? name + " is unreachable" : String.valueOf(d);
+		} else if (command.equals("movies")) {
+			return this.graph.movies(required(params, "name"));
+		} else if (command.equals("table")) {
+			ShortestPathTree tree = this.graph.dijkstra(centerOf(params));
+			Integer[] counts = this.graph.table(tree);
+			return this.graph.tableString(counts, this.graph.actors() - MyGraph.total(counts));
+		} else if (command.equals("stats")) {
+			return this.graph.stats().report();
+		}
+		throw new NoSuchElementException("Not a valid command. Commands are find, distance, movies, table and stats.");
+	}
+
+	/**
+	 * @return - the vertex named by the center parameter, or the server's center if there is none
+	 * @throws NoSuchElementException - if the center is not in the graph
+	 */
+	MyGraph.Vertex centerOf(HashMap<String, String> params) {
+		String name = params.get("center");
+		if (name == null) {
+			return this.center;
+		}
+		MyGraph.Vertex c = this.graph.getVertex(name);
+		if (c == null) {
+			throw new NoSuchElementException("Vertex \"" + name + "\" is not in the graph.");
+		}
+		return c;
+	}
+
+	/**
+	 * @return - the value of the parameter key
+	 * @throws IllegalArgumentException - if there is none
+	 */
+	static String required(HashMap<String, String> params, String key) {
+		String value = params.get(key);
+		if (value == null || value.length() == 0) {
+			throw new IllegalArgumentException("Missing parameter: " + key);
+		}
+		return value;
+	}
+
+	/**
+	 * Splits a URL query string into its decoded parameters.
+	 * @param query - raw query, such as name=Kevin+Bacon&center=Actor%200, or null
+	 * @return - value of every parameter, by name
+	 */
+	static HashMap<String, String> parameters(String query) {
+		HashMap<String, String> params = new HashMap<String, String>();
+		if (query != null) {
+			String[] pairs = query.split("&");
+			for (int i = 0; i < pairs.length; i++) {
+				int eq = pairs[i].indexOf('=');
+				if (eq > 0) {
+					params.put(URLDecoder.decode(pairs[i].substring(0, eq), StandardCharsets.UTF_8),
+							URLDecoder.decode(pairs[i].substring(eq + 1), StandardCharsets.UTF_8));
+				}
+			}
+		}
+		return params;
+	}
+
+	/**
+	 * Answers every request with answer, timing it into the graph's stats under its path.
+	 */
+	class Handler implements HttpHandler {
+		public void handle(HttpExchange exchange) throws IOException {
+			long began = System.nanoTime();
+			String path = exchange.getRequestURI().getPath();
+			String command = path.startsWith("/") ? path.substring(1) : path;
+			int status = 200;
+			String body;
+			try {
+				if (!exchange.getRequestMethod().equals("GET")) {
+					status = 405;
+					body = "Only GET is supported.";
+				} else {
+					body = answer(command, parameters(exchange.getRequestURI().getRawQuery()));
+				}
+			} catch (IllegalArgumentException e) {
+				status = 400;
+				body = e.getMessage();
+			} catch (NoSuchElementException e) {
+				status = 404;
+				body = e.getMessage();
+			} catch (RuntimeException e) {
+				status = 500;
+				body = "Query failed: " + e;
+			}
+			byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+			exchange.sendResponseHeaders(status, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+			if (status == 200) {
+				QueryServer.this.graph.stats().time(path, System.nanoTime() - began);
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of single source search results, keyed by the id of the center they were run from.
+ *
+ * Each result is a ShortestPathTree, which costs 8 bytes per id. Results are kept in a LinkedHashMap in access
+ * order, and the least recently used ones are dropped whenever the cached trees would take more than the memory
+ * budget. Switching back and forth between a few centers then needs no new searches.
+ *
+ * Every method is synchronized, so one cache can be shared between threads.
+ */
+public class SearchCache {
+	final LinkedHashMap<Integer, ShortestPathTree> results;
+	long budget;
+	long bytes;
+
+	/**
+	 * creates an empty cache.
+	 * @param budget - most bytes of arrays to keep
+	 */
+	public SearchCache(long budget) {
+		this.results = new LinkedHashMap<Integer, ShortestPathTree>(16, 0.75f, true);
+		this.budget = budget;
+		this.bytes = 0;
+	}
+
+	/**
+	 * Returns the result of the search from center, marking it as the most recently used. Hits and misses are counted
+	 * by the caller, in GraphStats.
+	 * @param center - id of the center
+	 * @return - the cached result, or null if there is none
+	 */
+	public synchronized ShortestPathTree get(int center) {
+		return this.results.get(center);
+	}
+
+	/**
+	 * Adds the result of the search from center, then drops the least recently used results until the cache fits
+	 * its budget again. A result bigger than the whole budget is not kept.
+	 * @param center - id of the center
+	 * @param t - result of the search
+	 */
+	public synchronized void put(int center, ShortestPathTree t) {
+		ShortestPathTree old = this.results.put(center, t);
+		if (old != null) {
+			this.bytes -= old.bytes();
+		}
+		this.bytes += t.bytes();
+		trim();
+	}
+
+	/**
+	 * Changes the memory budget, dropping results if the cache no longer fits.
+	 * @param budget - most bytes of arrays to keep
+	 */
+	public synchronized void setBudget(long budget) {
+		this.budget = budget;
+		trim();
+	}
+
+	/**
+	 * Drops every result, as when the graph changes.
+	 */
+	public synchronized void clear() {
+		this.results.clear();
+		this.bytes = 0;
+	}
+
+	/**
+	 * @return - number of results held
+	 */
+	public synchronized int size() {
+		return this.results.size();
+	}
+
+	/**
+	 * drops least recently used results until the cache fits its budget
+	 */
+	private void trim() {
+		Iterator<Map.Entry<Integer, ShortestPathTree>> itr = this.results.entrySet().iterator();
+		while (this.bytes > this.budget && itr.hasNext()) {
+			this.bytes -= itr.next().getValue().bytes();
+			itr.remove();
+		}
+	}
+}
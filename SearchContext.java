@@ -0,0 +1,99 @@
+import java.util.Arrays;
+
+/**
+ * Scratch space for one search at a time over a CSRGraph: a distance, a parent and a stamp for every id, and the
+ * heap and deque to queue them in. Contexts are pooled by the graph, so a search borrows one with CSRGraph.context,
+ * has it to itself until it gives it back with CSRGraph.release, and any number of searches can run at once without
+ * sharing anything they write.
+ *
+ * Nothing is cleared between searches. begin gives every search a new number, and an id only counts as labelled by
+ * the search whose number is in its stamp, or settled if the stamp holds the number negated. Everything else reads as
+ * unreached, so starting a search costs nothing however big the graph is, and a search that stays near its ends
+ * only touches the entries it visits.
+ */
+class SearchContext {
+	final int[] dist;
+	final int[] parent;
+	final int[] seen;		//number of the search that last labelled each id, negated once it is settled
+	final CSRGraph.LongHeap heap = new CSRGraph.LongHeap();
+	final CSRGraph.IntDeque deque = new CSRGraph.IntDeque(64);
+	int search;
+
+	/**
+	 * @param size - number of ids of the graph to be searched
+	 */
+	SearchContext(int size) {
+		this.dist = new int[size];
+		this.parent = new int[size];
+		this.seen = new int[size];
+		this.search = 0;
+	}
+
+	/**
+	 * Starts a new search, forgetting everything the last one labelled and emptying the heap and deque.
+	 */
+	void begin() {
+		if (this.search == Integer.MAX_VALUE) {		//numbers only run out after two billion searches
+			Arrays.fill(this.seen, 0);
+			this.search = 0;
+		}
+		this.search++;
+		this.heap.clear();
+		this.deque.clear();
+	}
+
+	/**
+	 * @return - true if the current search has labelled v
+	 */
+	boolean reached(int v) {
+		int s = this.seen[v];
+		return s == this.search || s == -this.search;
+	}
+
+	/**
+	 * @return - distance of v in the current search, or CSRGraph.UNREACHED if it has not been labelled
+	 */
+	int dist(int v) {
+		return reached(v) ? this.dist[v] : CSRGraph.UNREACHED;
+	}
+
+	/**
+	 * Labels v with a new distance and parent. v must not be settled yet.
+	 */
+	void label(int v, int d, int p) {
+		this.dist[v] = d;
+		this.parent[v] = p;
+		this.seen[v] = this.search;
+	}
+
+	/**
+	 * @return - true if the current search has settled v
+	 */
+	boolean settled(int v) {
+		return this.seen[v] == -this.search;
+	}
+
+	/**
+	 * Marks v as settled, labelled or not.
+	 */
+	void settle(int v) {
+		this.seen[v] = -this.search;
+	}
+
+	/**
+	 * Returns the ids on the labelled path to v, from the root of the search to v.
+	 * @param v - id labelled by the current search
+	 * @return - ids from the id with parent -1 to v, in order
+	 */
+	int[] path(int v) {
+		int length = 0;
+		for (int u = v; u != -1; u = this.parent[u]) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int u = v; u != -1; u = this.parent[u]) {
+			path[--length] = u;
+		}
+		return path;
+	}
+}
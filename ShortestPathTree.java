@@ -0,0 +1,70 @@
+/**
+ * The result of a single source search: the distance of every vertex id from the source, and the previous id on one
+ * shortest path to it. Following parent from any reached id walks back to the source, whose parent is -1.
+ *
+ * A tree is never changed once it is made, so it can be kept, cached and read by several threads at once,
+ * and costs two int arrays however many vertices it reaches. The one exception is the tree of a center tracked with
+ * MyGraph.track, which is repaired in place as the graph is edited.
+ */
+public class ShortestPathTree {
+	final int source;
+	final int[] dist;
+	final int[] parent;
+
+	/**
+	 * creates a tree from the arrays filled by a search. The arrays must not be changed afterwards.
+	 * @param source - id the search started from
+	 * @param dist - distance of every id, or CSRGraph.UNREACHED
+	 * @param parent - previous id on the path to every id, or -1
+	 */
+	public ShortestPathTree(int source, int[] dist, int[] parent) {
+		this.source = source;
+		this.dist = dist;
+		this.parent = parent;
+	}
+
+	/**
+	 * @return - id the search started from
+	 */
+	public int source() {
+		return this.source;
+	}
+
+	/**
+	 * @return - number of ids covered by the tree
+	 */
+	public int size() {
+		return this.dist.length;
+	}
+
+	/**
+	 * @param id - id of a vertex
+	 * @return - true if the source reaches id
+	 */
+	public boolean reached(int id) {
+		return id >= 0 && id < this.dist.length && this.dist[id] != CSRGraph.UNREACHED;
+	}
+
+	/**
+	 * @param id - id of a vertex
+	 * @return - distance from the source to id, or CSRGraph.UNREACHED
+	 */
+	public int dist(int id) {
+		return this.dist[id];
+	}
+
+	/**
+	 * @param id - id of a vertex
+	 * @return - previous id on the path from the source to id, or -1 for the source and unreached ids
+	 */
+	public int parent(int id) {
+		return this.parent[id];
+	}
+
+	/**
+	 * @return - bytes taken by the arrays
+	 */
+	long bytes() {
+		return 4L * (this.dist.length + this.parent.length);
+	}
+}
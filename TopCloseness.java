@@ -0,0 +1,287 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds the k actors with the lowest average distance to a set of targets exactly, without a full search from every
+ * actor, after the BFSCut method of Bergamini, Borassi, Crescenzi, Marino and Meyerhenke.
+ *
+ * Sources are searched in order of degree, so the best centers tend to be found first. Each search runs in order of
+ * distance, and every time it moves on to a new distance d it bounds the total it is building: every target not yet
+ * settled is at least d away, and if no edge costing 0 leads to a target, only the targets already found through an
+ * edge from a settled vertex can be exactly d away, so every other one is at least d + 1 away. As soon as that bound
+ * is worse than the k-th best total found so far, the source cannot be in the top k and its search stops. In a credit
+ * graph this stops most searches as soon as the co-stars of the source are found, before searching any further.
+ *
+ * The bound needs every target to be reachable from every source, which holds when the sources and targets all lie
+ * in one component of a graph whose distances are symmetric, like the actors connected to a center in a credit graph.
+ * If prune is false every search runs to the end, and the result is the same.
+ *
+ * Searches are shared out between worker threads, which only share the current top k. A search is only cut when it
+ * is strictly worse than the k-th best so far, which can only be better than the final k-th best, so the result is
+ * the same for any number of workers.
+ */
+public class TopCloseness {
+	final CSRGraph g;
+	final int[] targets;
+	final boolean[] counted;
+	final int k;
+	final boolean prune;
+	final boolean frontier;		//true if no edge costing 0 leads to a target, so the tighter bound holds
+	final long[] totals;		//best totals found so far, in order, with the positions in targets of their sources
+	final int[] positions;
+	int found;
+	volatile long threshold;	//the k-th best total, once k have been found
+	final AtomicInteger next;
+	final AtomicInteger done;
+	final AtomicInteger cut;
+	int[] order;
+
+	/**
+	 * prepares a search for the k best centers among targets.
+	 * @param g - frozen graph to search
+	 * @param targets - ids of the connected actors; each is a candidate center, and its average is over all of them
+	 * @param k - number of centers to find
+	 * @param prune - true if every target can reach every other, so searches may be cut short
+	 */
+	public TopCloseness(CSRGraph g, int[] targets, int k, boolean prune) {
+		this.g = g;
+		this.targets = targets;
+		this.counted = new boolean[g.size()];
+		for (int i = 0; i < targets.length; i++) {
+			this.counted[targets[i]] = true;
+		}
+		this.k = Math.min(k, targets.length);
+		this.prune = prune;
+		boolean frontier = true;
+		for (int e = 0; e < g.edges() && frontier; e++) {
+			frontier = g.costs[e] != 0 || !this.counted[g.targets[e]];
+		}
+		this.frontier = frontier;
+		this.totals = new long[this.k];
+		this.positions = new int[this.k];
+		this.found = 0;
+		this.threshold = Long.MAX_VALUE;
+		this.next = new AtomicInteger(0);
+		this.done = new AtomicInteger(0);
+		this.cut = new AtomicInteger(0);
+		long[] keys = new long[targets.length];
+		for (int i = 0; i < targets.length; i++) {		//highest degree first, ties in target order
+			keys[i] = ((long) (Integer.MAX_VALUE - g.degree(targets[i])) << 32) | i;
+		}
+		Arrays.sort(keys);
+		this.order = new int[targets.length];
+		for (int i = 0; i < targets.length; i++) {
+			this.order[i] = (int) keys[i];
+		}
+	}
+
+	/**
+	 * Searches from sources until there are none left. Any number of threads can run this at once.
+	 */
+	public void work() {
+		int[] dist = new int[this.g.size()];
+		int[] seen = new int[this.g.size()];		//number of the search that last set dist, so no array is cleared between searches
+		CSRGraph.IntDeque deque = new CSRGraph.IntDeque(64);
+		CSRGraph.LongHeap heap = new CSRGraph.LongHeap();
+		int searches = 0;
+		int i = this.next.getAndIncrement();
+		while (i < this.order.length) {
+			searches++;
+			int position = this.order[i];
+			long total = this.g.isZeroOne() ? total(this.targets[position], dist, seen, searches, deque)
+					: total(this.targets[position], dist, seen, searches, heap);
+			if (total >= 0) {
+				offer(total, position);
+			} else {
+				this.cut.incrementAndGet();
+			}
+			this.done.incrementAndGet();
+			i = this.next.getAndIncrement();
+		}
+	}
+
+	/**
+	 * Returns the total distance from source to the targets with a 0-1 BFS, or -1 if the search was cut short.
+	 * Vertices leave the deque in order of distance, so a vertex settled at a new distance starts a new level.
+	 */
+	private long total(int source, int[] dist, int[] seen, int search, CSRGraph.IntDeque deque) {
+		deque.clear();
+		dist[source] = 0;
+		seen[source] = search;
+		deque.addFirst(source);
+		long total = 0;
+		int reached = 0;
+		int discovered = 1;
+		int level = 0;
+		int settled = 0;
+		long relaxed = 0;
+		long pushes = 1;
+		long stale = 0;
+		while (!deque.isEmpty()) {
+			int u = deque.pollFirst();
+			int du = dist[u];
+			if (du < 0) {		//already settled; settled vertices keep their distance negated
+				stale++;
+				continue;
+			}
+			if (du > level) {
+				level = du;
+				if (cut(total, reached, discovered, level)) {
+					searched(settled, relaxed, pushes, stale);
+					return -1;
+				}
+			}
+			dist[u] = -du - 1;
+			settled++;
+			if (this.counted[u]) {
+				total = total + du;
+				reached++;
+			}
+			relaxed += this.g.offsets[u + 1] - this.g.offsets[u];
+			for (int e = this.g.offsets[u]; e < this.g.offsets[u + 1]; e++) {
+				int v = this.g.targets[e];
+				int c = this.g.costs[e];
+				if (seen[v] != search || du + c < dist[v]) {
+					if (seen[v] != search && this.counted[v]) {
+						discovered++;
+					}
+					seen[v] = search;
+					dist[v] = du + c;
+					if (c == 0) {
+						deque.addFirst(v);
+					} else {
+						deque.addLast(v);
+					}
+					pushes++;
+				}
+			}
+		}
+		searched(settled, relaxed, pushes, stale);
+		return total;
+	}
+
+	/**
+	 * Returns the total distance from source to the targets with Dijkstra's algorithm, or -1 if the search was cut
+	 * short, the same way as the 0-1 BFS.
+	 */
+	private long total(int source, int[] dist, int[] seen, int search, CSRGraph.LongHeap heap) {
+		while (!heap.isEmpty()) {
+			heap.poll();
+		}
+		dist[source] = 0;
+		seen[source] = search;
+		heap.add(0, source);
+		long total = 0;
+		int reached = 0;
+		int discovered = 1;
+		int level = 0;
+		int settled = 0;
+		long relaxed = 0;
+		long pushes = 1;
+		long stale = 0;
+		while (!heap.isEmpty()) {
+			int u = (int) heap.poll();
+			int du = dist[u];
+			if (du < 0) {
+				stale++;
+				continue;
+			}
+			if (du > level) {
+				level = du;
+				if (cut(total, reached, discovered, level)) {
+					searched(settled, relaxed, pushes, stale);
+					return -1;
+				}
+			}
+			dist[u] = -du - 1;
+			settled++;
+			if (this.counted[u]) {
+				total = total + du;
+				reached++;
+			}
+			relaxed += this.g.offsets[u + 1] - this.g.offsets[u];
+			for (int e = this.g.offsets[u]; e < this.g.offsets[u + 1]; e++) {
+				int v = this.g.targets[e];
+				int d = du + this.g.costs[e];
+				if (seen[v] != search || d < dist[v]) {
+					if (seen[v] != search && this.counted[v]) {
+						discovered++;
+					}
+					seen[v] = search;
+					dist[v] = d;
+					heap.add(d, v);
+					pushes++;
+				}
+			}
+		}
+		searched(settled, relaxed, pushes, stale);
+		return total;
+	}
+
+	/**
+	 * adds the work of one search, finished or cut, to the graph's stats if it is counting them
+	 */
+	private void searched(int settled, long relaxed, long pushes, long stale) {
+		if (this.g.stats != null) {
+			this.g.stats.searched(settled, relaxed, pushes, stale);
+		}
+	}
+
+	/**
+	 * returns true if a search whose unsettled vertices are all at least level away, having settled reached targets
+	 * with the given total so far and found discovered targets in all, cannot end up in the top k
+	 */
+	private boolean cut(long total, int reached, int discovered, int level) {
+		if (!this.prune) {
+			return false;
+		}
+		long bound = total + (long) level * (this.targets.length - reached);
+		if (this.frontier) {		//targets not found yet are at least one further
+			bound = bound + this.targets.length - discovered;
+		}
+		return bound > this.threshold;
+	}
+
+	/**
+	 * adds a finished total to the top k if it belongs there, ties going to the earlier target
+	 */
+	private synchronized void offer(long total, int position) {
+		int i = this.found;
+		if (i == this.k) {
+			if (total > this.totals[i - 1] || (total == this.totals[i - 1] && position > this.positions[i - 1])) {
+				return;
+			}
+			i--;
+		} else {
+			this.found++;
+		}
+		while (i > 0 && (this.totals[i - 1] > total || (this.totals[i - 1] == total && this.positions[i - 1] > position))) {
+			this.totals[i] = this.totals[i - 1];
+			this.positions[i] = this.positions[i - 1];
+			i--;
+		}
+		this.totals[i] = total;
+		this.positions[i] = position;
+		if (this.found == this.k) {
+			this.threshold = this.totals[this.k - 1];
+		}
+	}
+
+	/**
+	 * @return - positions in targets of the k best centers, best first
+	 */
+	public synchronized int[] positions() {
+		return Arrays.copyOf(this.positions, this.found);
+	}
+
+	/**
+	 * @return - average distance from each of the k best centers to the targets, best first
+	 */
+	public synchronized float[] averages() {
+		float[] averages = new float[this.found];
+		for (int i = 0; i < this.found; i++) {
+			averages[i] = (float) this.totals[i]/this.targets.length;
+		}
+		return averages;
+	}
+}
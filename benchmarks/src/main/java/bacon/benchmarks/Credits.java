@@ -0,0 +1,54 @@
+package bacon.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Synthetic credit databases for the benchmarks, written by the graph's CreditGenerator, so the benchmarks need no
+ * download and measure the same power-law graphs as anyone running the generator by hand with the same seed.
+ * The generator lives in the default package, so it is reached by reflection like the graph.
+ */
+final class Credits {
+	/** the busiest actor, a good center */
+	static final String CENTER = "Actor 0";
+	/** seed for every benchmark database */
+	static final long SEED = 42;
+
+	private static final Method WRITE;
+
+	static {
+		try {
+			WRITE = Class.forName("CreditGenerator").getMethod("write", File.class, long.class, long.class, int.class);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("The graph's classes are not on the class path", e);
+		}
+	}
+
+	private Credits() {
+	}
+
+	/**
+	 * Writes a database to a temporary file that is deleted when the JVM exits.
+	 * @param lines - number of credits to write
+	 * @return - the file
+	 * @throws IOException - if the file cannot be written
+	 */
+	static File write(int lines) throws IOException {
+		File file = File.createTempFile("credits-" + lines + "-", ".txt");
+		file.deleteOnExit();
+		new File(file.getPath() + ".snapshot").deleteOnExit();
+		try {
+			WRITE.invoke(null, file, (long) lines, SEED, 0);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+		return file;
+	}
+}
@@ -0,0 +1,148 @@
+package bacon.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * A MyGraph, reached by reflection. The graph lives in the default package, which classes in a named package cannot
+ * import, and JMH only generates code for benchmarks in a named package. A reflective call costs tens of nanoseconds,
+ * which is noise next to the operations measured.
+ */
+final class Graph {
+	private static final Class<?> GRAPH = load("MyGraph");
+	private static final Class<?> VERTEX = load("MyGraph$Vertex");
+	private static final Class<?> TREE = load("ShortestPathTree");
+	private static final Method READ_IN = method(GRAPH, "readIn", String.class);
+	private static final Method GET_VERTEX = method(GRAPH, "getVertex", String.class);
+	private static final Method VERTICES = method(GRAPH, "vertices");
+	private static final Method DIJKSTRA = method(GRAPH, "dijkstra", VERTEX);
+	private static final Method FIND = method(GRAPH, "find", TREE, String.class);
+	private static final Method TABLE = method(GRAPH, "table", TREE);
+	private static final Method LOAD_CONNECTED = method(GRAPH, "loadConnected", TREE);
+	private static final Method AVG_DIST = method(GRAPH, "avgDist", TREE);
+	private static final Method TOP_CENTERS = method(GRAPH, "topCenters", int.class, int.class);
+	private static final Method SET_SEARCH_CACHE_BUDGET = method(GRAPH, "setSearchCacheBudget", long.class);
+	private static final Method SET_WORKERS = method(GRAPH, "setWorkers", int.class);
+
+	private static PrintStream out;
+
+	final Object graph;
+
+	/**
+	 * creates an empty graph.
+	 */
+	Graph() {
+		try {
+			this.graph = GRAPH.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	void readIn(String source) {
+		call(READ_IN, source);
+	}
+
+	/**
+	 * @return - the vertex named name, or null
+	 */
+	Object vertex(String name) {
+		return call(GET_VERTEX, name);
+	}
+
+	int vertices() {
+		return (Integer) call(VERTICES);
+	}
+
+	/**
+	 * @return - the ShortestPathTree from start
+	 */
+	Object dijkstra(Object start) {
+		return call(DIJKSTRA, start);
+	}
+
+	String find(Object tree, String name) {
+		return (String) call(FIND, tree, name);
+	}
+
+	Integer[] table(Object tree) {
+		return (Integer[]) call(TABLE, tree);
+	}
+
+	void loadConnected(Object tree) {
+		call(LOAD_CONNECTED, tree);
+	}
+
+	float avgDist(Object tree) {
+		return (Float) call(AVG_DIST, tree);
+	}
+
+	/**
+	 * Finds the best n centers without printing them or keeping them for the next topcenter.
+	 * @return - the Entry of each center, best first
+	 */
+	Object[] topCenters(int n, int threads) {
+		return (Object[]) call(TOP_CENTERS, n, threads);
+	}
+
+	void setSearchCacheBudget(long bytes) {
+		call(SET_SEARCH_CACHE_BUDGET, bytes);
+	}
+
+	void setWorkers(int threads) {
+		call(SET_WORKERS, threads);
+	}
+
+	/**
+	 * Throws away everything the graph prints, such as load messages and progress bars, until speak is called.
+	 */
+	static synchronized void mute() {
+		if (out == null) {
+			out = System.out;
+			System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		}
+	}
+
+	/**
+	 * Prints to the console again.
+	 */
+	static synchronized void speak() {
+		if (out != null) {
+			System.setOut(out);
+			out = null;
+		}
+	}
+
+	private Object call(Method m, Object... args) {
+		try {
+			return m.invoke(this.graph, args);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Class<?> load(String name) {
+		try {
+			return Class.forName(name);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("The graph's classes are not on the class path", e);
+		}
+	}
+
+	private static Method method(Class<?> type, String name, Class<?>... parameters) {
+		try {
+			Method m = type.getDeclaredMethod(name, parameters);
+			m.setAccessible(true);		//some of the graph's methods are package private
+			return m;
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
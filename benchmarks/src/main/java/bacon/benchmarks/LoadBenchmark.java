@@ -0,0 +1,85 @@
+package bacon.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * readIn throughput. readText parses the text database with the CreditLoader and saves a snapshot, as the first read
+ * of a database does; readSnapshot maps the saved snapshot back in, as every later read does. Both report the lines
+ * of the database read per second, as well as reads per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+	@Param({"10000", "100000", "1000000"})
+	public int lines;
+
+	File credits;
+	File snapshot;
+
+	/**
+	 * Counts the lines read, which JMH reports per second next to the reads per second.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Lines {
+		public long lines;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			this.lines = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void write() throws IOException {
+		Graph.mute();
+		this.credits = Credits.write(this.lines);
+		this.snapshot = new File(this.credits.getPath() + ".snapshot");
+		new Graph().readIn(this.credits.getPath());		//saves the snapshot for readSnapshot
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() {
+		this.credits.delete();
+		this.snapshot.delete();
+		Graph.speak();
+	}
+
+	@Benchmark
+	public Object readText(Lines read) {
+		this.snapshot.delete();
+		Graph g = new Graph();
+		g.readIn(this.credits.getPath());
+		read.lines += this.lines;
+		return g.graph;
+	}
+
+	@Benchmark
+	public Object readSnapshot(Lines read) {
+		Graph g = new Graph();
+		g.readIn(this.credits.getPath());
+		read.lines += this.lines;
+		return g.graph;
+	}
+}
@@ -0,0 +1,29 @@
+package bacon.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the usual JMH command line, always adding the GC profiler, so allocation rates
+ * (gc.alloc.rate.norm is bytes per operation) are reported next to every time.
+ * For example, to run only the queries on the smallest graph:
+ *     java -jar target/benchmarks.jar QueryBenchmark -p lines=10000
+ */
+public final class Main {
+	private Main() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions command = new CommandLineOptions(args);
+		if (command.shouldHelp() || command.shouldList() || command.shouldListWithParams()
+				|| command.shouldListProfilers() || command.shouldListResultFormats()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		Options options = new OptionsBuilder().parent(command).addProfiler(GCProfiler.class).build();
+		new Runner(options).run();
+	}
+}
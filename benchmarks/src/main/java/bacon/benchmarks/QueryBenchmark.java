@@ -0,0 +1,87 @@
+package bacon.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of the queries a user runs against a loaded graph, from the busiest actor: a full search with dijkstra,
+ * then find, table and avgDist over that search, and the exact top 10 centers on one thread.
+ * The search cache is turned off, so every dijkstra searches the whole graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+	@Param({"10000", "100000", "1000000"})
+	public int lines;
+
+	File credits;
+	Graph graph;
+	Object center;
+	Object tree;
+	String target;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		Graph.mute();
+		this.credits = Credits.write(this.lines);
+		this.graph = new Graph();
+		this.graph.readIn(this.credits.getPath());
+		this.graph.setSearchCacheBudget(0);
+		this.graph.setWorkers(1);
+		this.center = this.graph.vertex(Credits.CENTER);
+		this.tree = this.graph.dijkstra(this.center);
+		this.graph.loadConnected(this.tree);
+		this.target = "Actor " + (this.lines / 8);		//a quiet actor, some way from the center
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() {
+		this.credits.delete();
+		new File(this.credits.getPath() + ".snapshot").delete();
+		Graph.speak();
+	}
+
+	@Benchmark
+	public Object dijkstra() {
+		return this.graph.dijkstra(this.center);
+	}
+
+	@Benchmark
+	public String find() {
+		return this.graph.find(this.tree, this.target);
+	}
+
+	@Benchmark
+	public Integer[] table() {
+		return this.graph.table(this.tree);
+	}
+
+	@Benchmark
+	public float avgDist() {
+		return this.graph.avgDist(this.tree);
+	}
+
+	@Benchmark
+	public Object[] topcenter() {
+		return this.graph.topCenters(10, 1);
+	}
+}